@@ -2,10 +2,13 @@ package artifixal.agrest.auth;
 
 import artifixal.agrest.dto.user.UserAuthenticationDTO;
 import artifixal.agrest.services.UserService;
+import java.net.InetSocketAddress;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -26,8 +29,8 @@ public class AuthController {
 
     @PostMapping("/login")
     public Mono<AuthenticationResultDTO> login(@RequestBody UserAuthenticationDTO credentials,
-        ServerHttpResponse response) {
-        return userService.login(credentials)
+        ServerHttpRequest request, ServerHttpResponse response) {
+        return userService.login(credentials, getClientAddress(request))
             .map((login) -> {
                 response.addCookie(login.cookies().accessTokenCookie());
                 response.addCookie(login.cookies().refreshTokenCookie());
@@ -35,6 +38,14 @@ public class AuthController {
             });
     }
 
+    private String getClientAddress(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null || address.getAddress() == null)
+            return "unknown";
+        return address.getAddress()
+            .getHostAddress();
+    }
+
     @PostMapping("/refresh")
     public Mono<Void> refresh(ServerRequest request, ServerHttpResponse response) {
         HttpCookie refreshToken = request.cookies()
@@ -45,4 +56,16 @@ public class AuthController {
                 return Mono.empty();
             });
     }
+
+    /**
+     * Revokes refresh token, so it can't be used even if leaked.
+     */
+    @DeleteMapping("/refresh")
+    public Mono<Void> revokeRefresh(ServerHttpRequest request, ServerHttpResponse response) {
+        HttpCookie refreshToken = request.getCookies()
+            .getFirst(UserService.REFRESH_TOKEN_COOKIE_NAME);
+        return userService.revokeRefreshToken(refreshToken)
+            .doOnNext(response::addCookie)
+            .then();
+    }
 }
@@ -1,6 +1,7 @@
 package artifixal.agrest.auth;
 
 import artifixal.agrest.token.paseto.PasetoService;
+import artifixal.agrest.token.paseto.VerifiedTokenCache;
 import lombok.AllArgsConstructor;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.core.Authentication;
@@ -8,17 +9,18 @@ import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 /**
- * Validates PASETO token received from context.
+ * Validates PASETO token received from context. Already verified tokens are served from cache.
  */
 @Component
 @AllArgsConstructor
 public class PasetoAuthenticationManager implements ReactiveAuthenticationManager {
 
     private final PasetoService pasetoService;
+    private final VerifiedTokenCache tokenCache;
 
     @Override
     public Mono<Authentication> authenticate(Authentication authentication) {
         String token = (String) authentication.getCredentials();
-        return pasetoService.validateToken(token);
+        return tokenCache.getOrValidate(token, pasetoService::validateToken);
     }
 }
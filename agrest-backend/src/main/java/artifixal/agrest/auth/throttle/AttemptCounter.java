@@ -0,0 +1,46 @@
+package artifixal.agrest.auth.throttle;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts attempts per key in a sliding window. Window is approximated by two fixed buckets, count from previous
+ * bucket is weighted by how much of it still overlaps the window.
+ */
+public interface AttemptCounter {
+
+    /**
+     * Registers attempt.
+     *
+     * @param key Who attempted.
+     *
+     * @return Mono emiting attempt count in window including this one.
+     */
+    public Mono<Long> increment(String key);
+
+    /**
+     * @param key Whose attempts to count.
+     *
+     * @return Mono emiting attempt count in window.
+     */
+    public Mono<Long> count(String key);
+
+    /**
+     * Forgets all attempts of the given key.
+     *
+     * @param key Whose attempts to forget.
+     *
+     * @return Mono completing when done.
+     */
+    public Mono<Void> reset(String key);
+
+    /**
+     * @param previous Attempts in previous bucket.
+     * @param current Attempts in current bucket.
+     * @param elapsed Fraction of current bucket which already passed.
+     *
+     * @return Estimated attempt count in sliding window.
+     */
+    public static long estimate(long previous, long current, double elapsed) {
+        return current + (long) Math.floor(previous * (1 - elapsed));
+    }
+}
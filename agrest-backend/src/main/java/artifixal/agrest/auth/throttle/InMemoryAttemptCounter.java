@@ -0,0 +1,84 @@
+package artifixal.agrest.auth.throttle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Clock;
+import java.time.Duration;
+import reactor.core.publisher.Mono;
+
+/**
+ * Node local {@code AttemptCounter}. Used when Redis is unavailable.
+ */
+public class InMemoryAttemptCounter implements AttemptCounter {
+
+    private final long windowMillis;
+    private final Clock clock;
+    private final Cache<String, Window> windows;
+
+    public InMemoryAttemptCounter(Duration window, int maximumSize, Clock clock) {
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+        windows = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterAccess(window.multipliedBy(2))
+            .build();
+    }
+
+    @Override
+    public Mono<Long> increment(String key) {
+        return Mono.fromSupplier(() -> {
+            long now = clock.millis();
+            return windows.get(key, (k) -> new Window())
+                .add(now / windowMillis, elapsed(now));
+        });
+    }
+
+    @Override
+    public Mono<Long> count(String key) {
+        return Mono.fromSupplier(() -> {
+            Window window = windows.getIfPresent(key);
+            if (window == null)
+                return 0L;
+            long now = clock.millis();
+            return window.estimate(now / windowMillis, elapsed(now));
+        });
+    }
+
+    @Override
+    public Mono<Void> reset(String key) {
+        return Mono.fromRunnable(() -> windows.invalidate(key));
+    }
+
+    private double elapsed(long now) {
+        return (double) (now % windowMillis) / windowMillis;
+    }
+
+    /**
+     * Two bucket window of single key.
+     */
+    private static class Window {
+
+        private long bucket;
+        private long current;
+        private long previous;
+
+        public synchronized long add(long nowBucket, double elapsed) {
+            roll(nowBucket);
+            current++;
+            return AttemptCounter.estimate(previous, current, elapsed);
+        }
+
+        public synchronized long estimate(long nowBucket, double elapsed) {
+            roll(nowBucket);
+            return AttemptCounter.estimate(previous, current, elapsed);
+        }
+
+        private void roll(long nowBucket) {
+            if (nowBucket == bucket)
+                return;
+            previous = (nowBucket == bucket + 1) ? current : 0;
+            current = 0;
+            bucket = nowBucket;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package artifixal.agrest.auth.throttle;
+
+import artifixal.agrest.config.LoginThrottleProperties;
+import artifixal.agrest.exceptions.LoginThrottledException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service throttling login attempts per client IP and per account. Failed attempts are counted in Redis, if it is
+ * unavailable node local counters are used instead. Lock applies to pair of client IP and account and lasts only until
+ * its failures leave the window, so nobody can lock other users out of their accounts.
+ */
+@Slf4j
+@Service
+public class LoginThrottleService {
+
+    private final static String IP_PREFIX = "login:ip:";
+    private final static String ACCOUNT_PREFIX = "login:account:";
+    private final static String PAIR_PREFIX = "login:pair:";
+
+    private final LoginThrottleProperties properties;
+    private final Clock clock;
+    private final AttemptCounter redisCounter;
+    private final AttemptCounter localCounter;
+
+    public LoginThrottleService(LoginThrottleProperties properties,
+        ReactiveRedisTemplate<String, String> redisTemplate) {
+        this.properties = properties;
+        this.clock = Clock.systemUTC();
+        redisCounter = new RedisAttemptCounter(redisTemplate, properties.getWindow(), clock);
+        localCounter = new InMemoryAttemptCounter(properties.getWindow(), properties.getLocalCacheSize(), clock);
+    }
+
+    /**
+     * Checks if login attempt may proceed. Should be called before any password hashing.
+     *
+     * @param ip Client address.
+     * @param email Account login.
+     *
+     * @return Mono emiting delay to apply before checking credentials or {@code LoginThrottledException} if attempt
+     *         is rejected.
+     */
+    public Mono<Duration> checkAllowed(String ip, String email) {
+        return Mono.zip(withFallback((counter) -> counter.count(ipKey(ip))),
+            withFallback((counter) -> counter.count(accountKey(email))),
+            withFallback((counter) -> counter.count(pairKey(ip, email))))
+            .map((failures) -> {
+                if (failures.getT1() >= properties.getMaxIpFailures()
+                    || failures.getT2() >= properties.getMaxAccountFailures()
+                    || isLocked(failures.getT3()))
+                    throw new LoginThrottledException("Too many failed login attempts", calcRetryAfter());
+                return calcDelay(failures.getT2());
+            });
+    }
+
+    /**
+     * Registers failed attempt.
+     *
+     * @param ip Client address.
+     * @param email Account login.
+     *
+     * @return Mono completing when done.
+     */
+    public Mono<Void> recordFailure(String ip, String email) {
+        return withFallback((counter) -> counter.increment(ipKey(ip)))
+            .then(withFallback((counter) -> counter.increment(accountKey(email))))
+            .then(withFallback((counter) -> counter.increment(pairKey(ip, email))))
+            .then();
+    }
+
+    /**
+     * Clears failed attempts of the account after successful login.
+     *
+     * @param ip Client address.
+     * @param email Account login.
+     *
+     * @return Mono completing when done.
+     */
+    public Mono<Void> recordSuccess(String ip, String email) {
+        String accountKey = accountKey(email);
+        String pairKey = pairKey(ip, email);
+        return withFallback((counter) -> counter.reset(accountKey))
+            .then(withFallback((counter) -> counter.reset(pairKey)))
+            .then(localCounter.reset(accountKey))
+            .then(localCounter.reset(pairKey));
+    }
+
+    /**
+     * @param pairFailures Failed attempts of the client on the account.
+     *
+     * @return Is the client locked out of the account?
+     */
+    private boolean isLocked(long pairFailures) {
+        return properties.getLockThreshold() > 0 && pairFailures >= properties.getLockThreshold();
+    }
+
+    private <T> Mono<T> withFallback(Function<AttemptCounter, Mono<T>> operation) {
+        return operation.apply(redisCounter)
+            .timeout(properties.getRedisTimeout())
+            .onErrorResume((err) -> {
+                log.warn("Redis attempt counter unavailable, using local one: {}", err.getMessage());
+                return operation.apply(localCounter);
+            });
+    }
+
+    /**
+     * Delay doubles with each failed attempt over threshold.
+     */
+    private Duration calcDelay(long accountFailures) {
+        if (accountFailures < properties.getDelayThreshold())
+            return Duration.ZERO;
+        long exponent = Math.min(accountFailures - properties.getDelayThreshold(), 16);
+        Duration delay = properties.getBaseDelay()
+            .multipliedBy(1L << exponent);
+        return (delay.compareTo(properties.getMaxDelay()) > 0) ? properties.getMaxDelay() : delay;
+    }
+
+    private Duration calcRetryAfter() {
+        long windowMillis = properties.getWindow().toMillis();
+        return Duration.ofMillis(windowMillis - clock.millis() % windowMillis);
+    }
+
+    private String ipKey(String ip) {
+        return IP_PREFIX + ip;
+    }
+
+    private String accountKey(String email) {
+        return ACCOUNT_PREFIX + normalize(email);
+    }
+
+    private String pairKey(String ip, String email) {
+        return PAIR_PREFIX + ip + ":" + normalize(email);
+    }
+
+    private String normalize(String email) {
+        return String.valueOf(email).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,91 @@
+package artifixal.agrest.auth.throttle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code AttemptCounter} shared between nodes, keeping buckets in Redis.
+ */
+public class RedisAttemptCounter implements AttemptCounter {
+
+    /**
+     * Increments current bucket and reads previous one in single round trip.
+     */
+    private final static RedisScript<List<Long>> INCREMENT_SCRIPT = longListScript("""
+        local current = redis.call('INCR', KEYS[1])
+        if current == 1 then
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+        end
+        local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+        return {current, previous}
+        """);
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final long windowMillis;
+    private final Clock clock;
+
+    public RedisAttemptCounter(ReactiveRedisTemplate<String, String> redisTemplate, Duration window, Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<Long> increment(String key) {
+        return Mono.defer(() -> {
+            long now = clock.millis();
+            long bucket = now / windowMillis;
+            List<String> keys = List.of(bucketKey(key, bucket), bucketKey(key, bucket - 1));
+            // Bucket has to outlive next one as it is read as previous
+            String ttl = String.valueOf(windowMillis * 2);
+            return redisTemplate.execute(INCREMENT_SCRIPT, keys, List.of(ttl))
+                .next()
+                .map((counts) -> AttemptCounter.estimate(counts.get(1), counts.get(0), elapsed(now)));
+        });
+    }
+
+    @Override
+    public Mono<Long> count(String key) {
+        return Mono.defer(() -> {
+            long now = clock.millis();
+            long bucket = now / windowMillis;
+            return redisTemplate.opsForValue()
+                .multiGet(List.of(bucketKey(key, bucket), bucketKey(key, bucket - 1)))
+                .map((counts) -> AttemptCounter.estimate(parseCount(counts.get(1)), parseCount(counts.get(0)),
+                    elapsed(now)));
+        });
+    }
+
+    @Override
+    public Mono<Void> reset(String key) {
+        return Mono.defer(() -> {
+            long bucket = clock.millis() / windowMillis;
+            return redisTemplate.delete(bucketKey(key, bucket), bucketKey(key, bucket - 1))
+                .then();
+        });
+    }
+
+    /**
+     * Lua array of integers is returned as list of longs, class literal can't express that.
+     */
+    @SuppressWarnings("unchecked")
+    private static RedisScript<List<Long>> longListScript(String script) {
+        return (RedisScript<List<Long>>) (RedisScript<?>) RedisScript.of(script, List.class);
+    }
+
+    private String bucketKey(String key, long bucket) {
+        return key + ":" + bucket;
+    }
+
+    private long parseCount(String count) {
+        return (count != null) ? Long.parseLong(count) : 0;
+    }
+
+    private double elapsed(long now) {
+        return (double) (now % windowMillis) / windowMillis;
+    }
+}
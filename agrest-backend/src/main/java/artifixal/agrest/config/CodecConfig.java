@@ -0,0 +1,67 @@
+package artifixal.agrest.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.JacksonCborDecoder;
+import org.springframework.http.codec.cbor.JacksonCborEncoder;
+import org.springframework.http.codec.smile.JacksonSmileDecoder;
+import org.springframework.http.codec.smile.JacksonSmileEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.MapperFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationConfig;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.databind.cfg.EnumFeature;
+import tools.jackson.databind.cfg.MapperBuilder;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Registers binary CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}) codecs next to
+ * JSON, so automated clients can skip text encoding. Format is negotiated by Accept and Content-Type headers, JSON
+ * stays the default. Binary mappers take over configuration of the JSON mapper built by Boot, so
+ * {@code spring.jackson} properties, customizers and module beans apply to every format.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class CodecConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper mapper;
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        CBORMapper cborMapper = copyConfig(CBORMapper.builder())
+            .build();
+        SmileMapper smileMapper = copyConfig(SmileMapper.builder())
+            .build();
+        var codecs = configurer.customCodecs();
+        codecs.register(new JacksonCborEncoder(cborMapper));
+        codecs.register(new JacksonCborDecoder(cborMapper));
+        codecs.register(new JacksonSmileEncoder(smileMapper));
+        codecs.register(new JacksonSmileDecoder(smileMapper));
+    }
+
+    /**
+     * Copies features, modules, property inclusion, time zone and locale of the JSON mapper.
+     */
+    <M extends ObjectMapper, B extends MapperBuilder<M, B>> B copyConfig(B builder) {
+        for (SerializationFeature feature : SerializationFeature.values())
+            builder.configure(feature, mapper.isEnabled(feature));
+        for (DeserializationFeature feature : DeserializationFeature.values())
+            builder.configure(feature, mapper.isEnabled(feature));
+        for (MapperFeature feature : MapperFeature.values())
+            builder.configure(feature, mapper.isEnabled(feature));
+        for (DateTimeFeature feature : DateTimeFeature.values())
+            builder.configure(feature, mapper.isEnabled(feature));
+        for (EnumFeature feature : EnumFeature.values())
+            builder.configure(feature, mapper.isEnabled(feature));
+        SerializationConfig config = mapper.serializationConfig();
+        return builder.addModules(mapper.registeredModules())
+            .changeDefaultPropertyInclusion((inclusion) -> config.getDefaultPropertyInclusion())
+            .defaultTimeZone(config.getTimeZone())
+            .defaultLocale(config.getLocale());
+    }
+}
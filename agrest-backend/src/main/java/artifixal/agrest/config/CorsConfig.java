@@ -26,7 +26,7 @@ public class CorsConfig {
         cors.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE"));
         cors.setAllowedHeaders(Arrays.asList(HttpHeaders.CONTENT_TYPE, CsrfService.CSRF_HEADER, "X-REQUESTED-WITH",
             HttpHeaders.CACHE_CONTROL, HttpHeaders.CONNECTION, PageService.CURRENT_PAGE, PageService.PAGE_SIZE,
-            PageService.TOTAL_COUNT, PageService.TOTAL_PAGES));
+            PageService.TOTAL_COUNT, PageService.TOTAL_PAGES, "Last-Event-ID"));
         cors.setExposedHeaders(Arrays.asList("X-XSRF-TOKEN", PageService.CURRENT_PAGE, PageService.PAGE_SIZE,
             PageService.TOTAL_COUNT, PageService.TOTAL_PAGES));
         cors.setAllowCredentials(Boolean.TRUE);
@@ -0,0 +1,42 @@
+package artifixal.agrest.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contains configuration properties for startup Argon2 cost calibration.
+ */
+@Component
+@ConfigurationProperties("app.hash.calibration")
+@Getter
+@Setter
+public class HashCalibrationProperties {
+
+    /**
+     * If disabled, parameters from {@code psw4j.properties} are used as is.
+     */
+    private boolean enabled;
+
+    /**
+     * Desired time of single hash.
+     */
+    private Duration target;
+
+    /**
+     * Upper bound of memory cost in KiB.
+     */
+    private int maxMemory;
+
+    /**
+     * Upper bound of iteration count.
+     */
+    private int maxIterations;
+
+    /**
+     * How many hashes are measured per tried parameter set.
+     */
+    private int samples;
+}
@@ -0,0 +1,37 @@
+package artifixal.agrest.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contains configuration properties for password hashing executor.
+ */
+@Component
+@ConfigurationProperties("app.hash.pool")
+@Getter
+@Setter
+public class HashPoolProperties {
+
+    /**
+     * Worker thread count. If not positive pool is sized from available memory and cores.
+     */
+    private int threads;
+
+    /**
+     * Fraction of max heap which concurrently running hashes may occupy.
+     */
+    private double memoryFraction;
+
+    /**
+     * How many hash requests can wait for a free worker.
+     */
+    private int queueSize;
+
+    /**
+     * Max time request can wait in queue before being rejected.
+     */
+    private Duration queueDeadline;
+}
@@ -0,0 +1,60 @@
+package artifixal.agrest.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contains configuration properties for login brute-force throttling.
+ */
+@Component
+@ConfigurationProperties("app.auth.throttle")
+@Getter
+@Setter
+public class LoginThrottleProperties {
+
+    /**
+     * Sliding window in which failed attempts are counted.
+     */
+    private Duration window;
+
+    /**
+     * Failed attempts from single IP after which logins from it are rejected.
+     */
+    private int maxIpFailures;
+
+    /**
+     * Failed attempts on single account after which logins to it are rejected.
+     */
+    private int maxAccountFailures;
+
+    /**
+     * Failed attempts from single IP on single account after which that IP is locked out of the account until its
+     * failures leave the window.
+     */
+    private int lockThreshold;
+
+    /**
+     * Failed attempts on single account after which responses get delayed.
+     */
+    private int delayThreshold;
+
+    /**
+     * First delay, doubled with each next failed attempt.
+     */
+    private Duration baseDelay;
+
+    private Duration maxDelay;
+
+    /**
+     * How long to wait for Redis before falling back to node local counters.
+     */
+    private Duration redisTimeout;
+
+    /**
+     * Max count of keys tracked by node local counters.
+     */
+    private int localCacheSize;
+}
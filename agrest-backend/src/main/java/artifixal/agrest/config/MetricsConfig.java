@@ -0,0 +1,23 @@
+package artifixal.agrest.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+
+/**
+ * App metrics config.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Exposes exchange in Reactor context, so timers can be tagged with endpoint which triggered them.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public ServerWebExchangeContextFilter exchangeContextFilter() {
+        return new ServerWebExchangeContextFilter();
+    }
+}
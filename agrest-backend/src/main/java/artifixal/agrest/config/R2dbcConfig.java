@@ -1,9 +1,12 @@
 package artifixal.agrest.config;
 
+import artifixal.agrest.entity.converter.EncryptedMapToJsonbConverter;
 import artifixal.agrest.entity.converter.JsonNodeToJsonbConverter;
-import artifixal.agrest.entity.converter.MapToJsonbConverter;
+import artifixal.agrest.entity.converter.JsonbMapCodec;
+import artifixal.agrest.entity.converter.JsonbToEncryptedMapConverter;
 import artifixal.agrest.entity.converter.JsonbToJsonNodeConverter;
-import artifixal.agrest.entity.converter.JsonbToMapConverter;
+import artifixal.agrest.entity.converter.JsonbToLazyJsonConverter;
+import artifixal.agrest.entity.converter.LazyJsonToJsonbConverter;
 import java.util.ArrayList;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -20,16 +23,19 @@ import tools.jackson.databind.ObjectMapper;
 public class R2dbcConfig {
 
     private final ObjectMapper mapper;
+    private final JsonbMapCodec mapCodec;
 
     @Bean
     public R2dbcCustomConversions r2dbcCustomConversions() {
         ArrayList converters = new ArrayList();
         converters.addAll(PostgresDialect.INSTANCE.getConverters());
 
-        converters.add(new MapToJsonbConverter(mapper));
-        converters.add(new JsonbToMapConverter(mapper));
-        converters.add(new JsonNodeToJsonbConverter());
+        converters.add(new EncryptedMapToJsonbConverter(mapCodec));
+        converters.add(new JsonbToEncryptedMapConverter(mapCodec));
+        converters.add(new JsonNodeToJsonbConverter(mapper));
         converters.add(new JsonbToJsonNodeConverter(mapper));
+        converters.add(new LazyJsonToJsonbConverter());
+        converters.add(new JsonbToLazyJsonConverter(mapper));
         return R2dbcCustomConversions.of(PostgresDialect.INSTANCE, converters);
     }
 }
@@ -0,0 +1,32 @@
+package artifixal.agrest.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contains configuration properties for refresh token revocation.
+ */
+@Component
+@ConfigurationProperties("app.auth.revocation")
+@Getter
+@Setter
+public class RevocationProperties {
+
+    /**
+     * Count of revoked tokens Bloom filter is sized for.
+     */
+    private long expectedTokens;
+
+    /**
+     * False positive rate of Bloom filter at expected size.
+     */
+    private double falsePositiveRate;
+
+    /**
+     * How often Bloom filter is rebuilt from revocation store, dropping expired entries.
+     */
+    private Duration syncInterval;
+}
@@ -56,6 +56,9 @@ public class SecurityConfig {
                     .permitAll()
                     .pathMatchers(HttpMethod.POST, "/v1/auth/login", "/v1/auth/refresh")
                     .permitAll()
+                    // Refresh token authenticates revocation itself
+                    .pathMatchers(HttpMethod.DELETE, "/v1/auth/refresh")
+                    .permitAll()
                     .anyExchange()
                     .authenticated();
             })
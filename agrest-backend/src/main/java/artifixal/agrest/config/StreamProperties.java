@@ -0,0 +1,27 @@
+package artifixal.agrest.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contains configuration properties for batched streaming of lists.
+ */
+@Component
+@ConfigurationProperties("app.stream")
+@Getter
+@Setter
+public class StreamProperties {
+
+    /**
+     * Max count of items written and flushed together.
+     */
+    private int batchSize;
+
+    /**
+     * Max time item waits for its batch to fill up before the batch is flushed.
+     */
+    private Duration batchWindow;
+}
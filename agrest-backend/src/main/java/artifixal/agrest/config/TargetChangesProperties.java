@@ -0,0 +1,42 @@
+package artifixal.agrest.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contains configuration properties for live target change feed.
+ */
+@Component
+@ConfigurationProperties("app.targets.changes")
+@Getter
+@Setter
+public class TargetChangesProperties {
+
+    /**
+     * Changes within this window are merged into single event, repeated changes of one target are sent once.
+     */
+    private Duration coalesceWindow;
+
+    /**
+     * Max count of changes in single event.
+     */
+    private int maxBatch;
+
+    /**
+     * Events buffered per subscriber, the oldest ones are dropped when slow subscriber falls behind.
+     */
+    private int bufferSize;
+
+    /**
+     * How long database listener is kept after the last subscriber leaves.
+     */
+    private Duration listenerGrace;
+
+    /**
+     * Max delay between attempts to re-establish lost database listener.
+     */
+    private Duration maxReconnectDelay;
+}
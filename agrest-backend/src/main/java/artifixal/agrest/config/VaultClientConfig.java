@@ -2,6 +2,7 @@ package artifixal.agrest.config;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.vault.authentication.ClientAuthentication;
@@ -13,9 +14,10 @@ import org.springframework.vault.support.SslConfiguration.KeyConfiguration;
 import org.springframework.vault.support.SslConfiguration.KeyStoreConfiguration;
 
 /**
- * Configuration of Vault client.
+ * Configuration of Vault client. Skipped when other secret store is used.
  */
 @Configuration
+@ConditionalOnProperty(name = "app.secrets.store", havingValue = "vault", matchIfMissing = true)
 @RequiredArgsConstructor
 public class VaultClientConfig extends AbstractReactiveVaultConfiguration {
 
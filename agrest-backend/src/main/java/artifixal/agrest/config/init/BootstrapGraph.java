@@ -0,0 +1,142 @@
+package artifixal.agrest.config.init;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Graph of asynchronous startup steps. Each step starts as soon as all of its dependencies complete, so independent
+ * steps run in parallel and startup takes as long as the longest dependency chain.
+ */
+@Slf4j
+public class BootstrapGraph {
+
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    /**
+     * Adds step which fails startup on error.
+     *
+     * @param name Unique step name.
+     * @param action Supplier of the step work.
+     * @param dependencies Names of previously added steps which have to complete first.
+     *
+     * @return This graph.
+     */
+    public BootstrapGraph step(String name, Supplier<Mono<?>> action, String... dependencies) {
+        return add(name, action, false, dependencies);
+    }
+
+    /**
+     * Adds step whose failure is only logged. Mainly for warming connection pools, which would be otherwise opened by
+     * the first request.
+     *
+     * @see #step(String, Supplier, String...)
+     */
+    public BootstrapGraph optionalStep(String name, Supplier<Mono<?>> action, String... dependencies) {
+        return add(name, action, true, dependencies);
+    }
+
+    private BootstrapGraph add(String name, Supplier<Mono<?>> action, boolean optional, String... dependencies) {
+        if (steps.containsKey(name))
+            throw new IllegalArgumentException("Duplicated startup step: " + name);
+        List<Step> required = new ArrayList<>(dependencies.length);
+        for (String dependency : dependencies) {
+            Step step = steps.get(dependency);
+            if (step == null)
+                throw new IllegalArgumentException("Startup step " + name + " depends on unknown step " + dependency);
+            required.add(step);
+        }
+        steps.put(name, new Step(name, action, optional, required));
+        return this;
+    }
+
+    /**
+     * Runs all steps and logs their timeline.
+     *
+     * @return Mono completing when all steps complete or failing with the first required step error.
+     */
+    public Mono<Void> run() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            steps.values()
+                .forEach((step) -> step.prepare(start));
+            return Mono.when(steps.values()
+                .stream()
+                .map((step) -> step.execution)
+                .toList())
+                .doFinally((signal) -> logTimeline(start));
+        });
+    }
+
+    private void logTimeline(long start) {
+        StringBuilder timeline = new StringBuilder("Startup steps finished in ")
+            .append(Duration.ofNanos(System.nanoTime() - start)
+                .toMillis())
+            .append(" ms:");
+        for (Step step : steps.values())
+            timeline.append(System.lineSeparator())
+                .append(step);
+        log.info(timeline.toString());
+    }
+
+    private static class Step {
+
+        private final String name;
+        private final Supplier<Mono<?>> action;
+        private final boolean optional;
+        private final List<Step> dependencies;
+
+        private Mono<Void> execution;
+        private volatile long startedAt = -1;
+        private volatile long finishedAt = -1;
+        private volatile String result = "not run";
+
+        public Step(String name, Supplier<Mono<?>> action, boolean optional, List<Step> dependencies) {
+            this.name = name;
+            this.action = action;
+            this.optional = optional;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * Dependencies are added before dependants, so their executions already exist.
+         */
+        public void prepare(long graphStart) {
+            Mono<Void> work = Mono.defer(() -> {
+                startedAt = System.nanoTime() - graphStart;
+                return action.get();
+            })
+                .doOnSuccess((ignored) -> result = "ok")
+                .doOnError((err) -> result = "failed: " + err.getMessage())
+                .doFinally((signal) -> finishedAt = System.nanoTime() - graphStart)
+                .then();
+            if (optional)
+                work = work.onErrorResume((err) -> {
+                    log.warn("Optional startup step {} failed: {}", name, err.getMessage());
+                    return Mono.empty();
+                });
+            execution = Mono.when(dependencies.stream()
+                .map((step) -> step.execution)
+                .toList())
+                .then(work)
+                .cache();
+        }
+
+        @Override
+        public String toString() {
+            String deps = dependencies.isEmpty() ? "" : " after " + Arrays.toString(dependencies.stream()
+                .map((step) -> step.name)
+                .toArray());
+            if (startedAt < 0)
+                return String.format("  %-14s %s%s", name, result, deps);
+            return String.format("  %-14s %6d ms -> %6d ms %s%s", name, startedAt / 1_000_000,
+                finishedAt / 1_000_000, result, deps);
+        }
+    }
+}
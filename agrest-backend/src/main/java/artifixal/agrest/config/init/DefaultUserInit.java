@@ -5,58 +5,62 @@ import artifixal.agrest.dto.user.SecurePassword;
 import artifixal.agrest.entity.User;
 import artifixal.agrest.repository.UserRepository;
 import artifixal.agrest.services.UserService;
+import artifixal.agrest.services.secrets.SecretStore;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.vault.core.ReactiveVaultTemplate;
+import reactor.core.publisher.Mono;
 
 /**
  * Creates default admin user with password change enforcement.
  */
 @Component
 @RequiredArgsConstructor
-public class DefaultUserInit implements CommandLineRunner {
-
-    @Value("${spring.cloud.vault.kv.backend}")
-    private String keyValPath;
+public class DefaultUserInit {
 
     @Value("${vault.path.app.init}")
     private String appInitPath;
 
     private final UserRepository userRepo;
     private final UserService userService;
-    private final ReactiveVaultTemplate vaultTemplate;
+    private final SecretStore secretStore;
+
+    /**
+     * Creates admin unless application was already initialized.
+     *
+     * @return Mono completing when done.
+     */
+    public Mono<Void> createDefaultUser() {
+        return secretStore.exists(appInitPath)
+            .flatMap((initialized) -> initialized ? Mono.empty() : createAdmin());
+    }
 
-    @Override
-    public void run(String... args) throws Exception {
-        var k2 = vaultTemplate.opsForVersionedKeyValue(keyValPath);
-        var initCheck = k2
-            .get(appInitPath)
-            .blockOptional();
-        if (initCheck.isEmpty()) {
-            byte[] hash = userService.hashPassword(new SecurePassword("NotDefaultAdminPassword1!".getBytes()));
-            User admin = new User("admin", hash, UserRole.ADMIN, LocalDateTime.MAX, true, false, true);
-            admin.setCreated(LocalDateTime.now());
-            UUID systemUserID = UUID.fromString("00000000-0000-0000-0000-000000000000");
-            admin.setCreatorID(systemUserID);
-            UsernamePasswordAuthenticationToken systemUser = UsernamePasswordAuthenticationToken
-                .authenticated(systemUserID, null,
-                    Collections.singleton(UserRole.ADMIN.toAuthority()));
-            userRepo.save(admin)
-                .flatMap((userInit) -> {
-                    HashMap<String, String> initData = new HashMap<>();
-                    initData.put("userInit", "true");
-                    return k2.put(appInitPath, initData);
-                })
-                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(systemUser))
-                .block();
-        }
+    private Mono<Void> createAdmin() {
+        UUID systemUserID = UUID.fromString("00000000-0000-0000-0000-000000000000");
+        UsernamePasswordAuthenticationToken systemUser = UsernamePasswordAuthenticationToken
+            .authenticated(systemUserID, null,
+                Collections.singleton(UserRole.ADMIN.toAuthority()));
+        return Mono.using(() -> new SecurePassword("NotDefaultAdminPassword1!".getBytes()), userService::hashPassword,
+            SecurePassword::close)
+            .map((hash) -> {
+                User admin = new User("admin", hash, UserRole.ADMIN, LocalDateTime.MAX, true, false, true);
+                admin.setCreated(LocalDateTime.now());
+                admin.setCreatorID(systemUserID);
+                return admin;
+            })
+            .flatMap((admin) -> userRepo.save(admin))
+            .flatMap((userInit) -> {
+                HashMap<String, String> initData = new HashMap<>();
+                initData.put("userInit", "true");
+                return secretStore.put(appInitPath, initData);
+            })
+            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(systemUser))
+            .then();
     }
 }
@@ -0,0 +1,65 @@
+package artifixal.agrest.config.init;
+
+import artifixal.agrest.services.PasswordHashService;
+import artifixal.agrest.services.UserService;
+import artifixal.agrest.services.VaultService;
+import artifixal.agrest.services.crypto.DataKeyService;
+import artifixal.agrest.token.paseto.PasetoService;
+import artifixal.agrest.token.revocation.RefreshTokenRevocationService;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs startup work as a dependency graph, once all beans are created and before web server starts accepting
+ * requests. Vault, database and Redis round trips as well as hash calibration overlap instead of running one after
+ * another.
+ */
+@Component
+@RequiredArgsConstructor
+public class StartupBootstrap implements SmartInitializingSingleton {
+
+    @Value("${app.startup.timeout}")
+    private Duration timeout;
+
+    private final VaultInitRunner vaultInit;
+    private final DefaultUserInit defaultUserInit;
+    private final VaultService vaultService;
+    private final PasetoService pasetoService;
+    private final PasswordHashService hashService;
+    private final UserService userService;
+    private final DataKeyService dataKeyService;
+    private final RefreshTokenRevocationService revocationService;
+    private final DatabaseClient databaseClient;
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        createGraph().run()
+            .block(timeout);
+    }
+
+    BootstrapGraph createGraph() {
+        return new BootstrapGraph()
+            .step("vault-secrets", vaultInit::initVault)
+            .step("hash-pool", hashService::start)
+            // Warm connection pools, so first requests don't pay for handshakes
+            .optionalStep("db-pool", () -> databaseClient.sql("SELECT 1")
+                .fetch()
+                .rowsUpdated())
+            .optionalStep("redis", () -> redisTemplate.execute((connection) -> connection.ping())
+                .then())
+            // Checks fall through to Redis until it succeeds, so outage doesn't block startup
+            .optionalStep("revocations", revocationService::loadFilter)
+            .step("paseto-keys", pasetoService::loadKeys, "vault-secrets")
+            .step("csrf-key", () -> vaultService.getCsrfKey(), "vault-secrets")
+            .step("data-keys", dataKeyService::loadKeys, "vault-secrets")
+            .step("pepper", userService::loadPepper, "vault-secrets", "hash-pool")
+            .step("default-user", defaultUserInit::createDefaultUser, "pepper", "db-pool");
+    }
+}
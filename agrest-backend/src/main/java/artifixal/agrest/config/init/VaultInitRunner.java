@@ -1,73 +1,89 @@
 package artifixal.agrest.config.init;
 
-import artifixal.agrest.dto.vault.SingleKeyDTO;
-import jakarta.annotation.PostConstruct;
+import artifixal.agrest.services.secrets.SecretStore;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Base64.Encoder;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.vault.core.ReactiveVaultTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
- * Initializes Vault with secrets.
+ * Initializes secret store with secrets.
  */
 @Component
 @RequiredArgsConstructor
 public class VaultInitRunner {
 
-    @Value("${spring.cloud.vault.kv.backend}")
-    private String keyValPath;
+    private final SecretStore secretStore;
 
-    private final ReactiveVaultTemplate vaultTemplate;
+    /**
+     * Creates missing secrets. Each secret is checked and created independently of others.
+     *
+     * @return Mono completing when all secrets exist.
+     */
+    public Mono<Void> initVault() {
+        return Mono.when(
+            createIfMissing("agrest-app/csrf", this::createRandomKey),
+            createIfMissing("agrest-app/data-kek", this::createRandomKey),
+            createIfMissing("agrest-app/paseto-keys", this::createPasetoKeys),
+            createIfMissing("agrest-app/pepper", this::createPepper));
+    }
 
-    @PostConstruct
-    public void initVault() throws Exception {
-        var k2 = vaultTemplate.opsForVersionedKeyValue(keyValPath);
-        var csrfKeyCheck = k2
-            .get("agrest-app/csrf", SingleKeyDTO.class)
-            .blockOptional();
-        if (csrfKeyCheck.isEmpty()) {
-            // CSRF key
-            SecureRandom rand = SecureRandom.getInstanceStrong();
-            byte[] csrfKey = new byte[32];
-            rand.nextBytes(csrfKey);
-            HashMap<String, String> csrfData = new HashMap<>();
-            Encoder b64 = Base64.getEncoder();
-            String csrfKeyStr = b64
-                .encodeToString(csrfKey);
-            csrfData.put("key", csrfKeyStr);
-            k2.put("agrest-app/csrf", csrfData)
-                .block();
+    private Mono<Void> createIfMissing(String path, Callable<Map<String, String>> secretFactory) {
+        return secretStore.exists(path)
+            .flatMap((exists) -> {
+                if (exists)
+                    return Mono.empty();
+                // Strong random may block while gathering entropy
+                return Mono.fromCallable(secretFactory)
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap((data) -> secretStore.put(path, data))
+                    .then();
+            });
+    }
 
-            // PASETO Keypair
-            KeyPair pasetoKeyPair = KeyPairGenerator.getInstance("Ed25519")
-                .generateKeyPair();
-            HashMap<String, String> pasetoKeys = new HashMap<>();
-            String pubKeyStr = b64.encodeToString(pasetoKeyPair.getPublic()
-                .getEncoded());
-            pasetoKeys.put("publicKey", pubKeyStr);
-            String prvKeyStr = b64.encodeToString(pasetoKeyPair.getPrivate()
-                .getEncoded());
-            pasetoKeys.put("privateKey", prvKeyStr);
-            k2.put("agrest-app/paseto-keys", pasetoKeys)
-                .block();
+    /**
+     * Creates 256 bit key, used for CSRF HMAC and as key encryption key.
+     */
+    private Map<String, String> createRandomKey() throws Exception {
+        byte[] key = new byte[32];
+        SecureRandom.getInstanceStrong()
+            .nextBytes(key);
+        HashMap<String, String> keyData = new HashMap<>();
+        keyData.put("key", Base64.getEncoder()
+            .encodeToString(key));
+        Arrays.fill(key, (byte) 0);
+        return keyData;
+    }
+
+    private Map<String, String> createPasetoKeys() throws Exception {
+        KeyPair pasetoKeyPair = KeyPairGenerator.getInstance("Ed25519")
+            .generateKeyPair();
+        Encoder b64 = Base64.getEncoder();
+        HashMap<String, String> pasetoKeys = new HashMap<>();
+        String pubKeyStr = b64.encodeToString(pasetoKeyPair.getPublic()
+            .getEncoded());
+        pasetoKeys.put("publicKey", pubKeyStr);
+        String prvKeyStr = b64.encodeToString(pasetoKeyPair.getPrivate()
+            .getEncoded());
+        pasetoKeys.put("privateKey", prvKeyStr);
+        return pasetoKeys;
+    }
 
-            // Pepper
-            byte[] pepper = new byte[32];
-            rand.nextBytes(pepper);
-            HashMap<String, String> pepperData = new HashMap<>();
-            pepperData.put("key", new String(pepper));
-            k2.put("agrest-app/pepper", pepperData)
-                .block();
-        } else
-            csrfKeyCheck.get()
-                .getData()
-                .key()
-                .close();
+    private Map<String, String> createPepper() throws Exception {
+        byte[] pepper = new byte[32];
+        SecureRandom.getInstanceStrong()
+            .nextBytes(pepper);
+        HashMap<String, String> pepperData = new HashMap<>();
+        pepperData.put("key", new String(pepper));
+        return pepperData;
     }
 }
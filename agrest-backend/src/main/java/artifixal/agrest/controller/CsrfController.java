@@ -1,8 +1,12 @@
 package artifixal.agrest.controller;
 
+import artifixal.agrest.dto.CsrfTokensDTO;
 import artifixal.agrest.services.CsrfService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
@@ -25,4 +29,19 @@ public class CsrfController {
                 return exchange.getResponse().setComplete();
             });
     }
+
+    /**
+     * Issues batch of tokens which client sends in header, one per mutating request. Token cookie is removed, as
+     * batch tokens don't match it.
+     */
+    @GetMapping("/v1/csrf/batch")
+    public Mono<CsrfTokensDTO> getCsrfTokens(
+        @RequestParam(defaultValue = "10") @Min(1) @Max(CsrfService.MAX_BATCH_SIZE) int count,
+        ServerWebExchange exchange) {
+        return csrfService.generateTokens(count)
+            .map((tokens) -> {
+                exchange.getResponse().addCookie(csrfService.createExpiredCsrfCookie());
+                return new CsrfTokensDTO(tokens, csrfService.getTokenTTLSeconds());
+            });
+    }
 }
@@ -1,17 +1,32 @@
 package artifixal.agrest.controller;
 
+import artifixal.agrest.config.StreamProperties;
 import artifixal.agrest.dto.TargetEntryDTO;
+import artifixal.agrest.dto.target.SwaggerDocumentDTO;
+import artifixal.agrest.dto.target.TargetChangeDTO;
 import artifixal.agrest.dto.target.TargetDTO;
 import artifixal.agrest.dto.target.TargetDetailsDTO;
+import artifixal.agrest.dto.target.TargetField;
+import artifixal.agrest.metrics.ReactiveMetrics;
 import artifixal.agrest.services.TargetService;
 import artifixal.agrest.services.UserService;
+import artifixal.agrest.stream.NdjsonBatchWriter;
+import artifixal.agrest.stream.StreamPosition;
+import artifixal.agrest.stream.TargetChangeFeed;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.codec.multipart.FilePart;
@@ -20,12 +35,16 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * REST Controller related to {@code Target} manipulation.
@@ -36,7 +55,18 @@ import reactor.core.publisher.Mono;
 @AllArgsConstructor
 public class TargetController {
 
+    /**
+     * Size of response chunks of streamed documents.
+     */
+    private final static int CHUNK_SIZE = 64 * 1024;
+
+    private final static String LAST_EVENT_ID = "Last-Event-ID";
+
     private final TargetService targetService;
+    private final NdjsonBatchWriter ndjsonWriter;
+    private final StreamProperties streamProperties;
+    private final TargetChangeFeed changeFeed;
+    private final ReactiveMetrics metrics;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public Mono<Long> addTarget(@RequestPart("target") @Valid TargetDTO newTargetData,
@@ -59,32 +89,184 @@ public class TargetController {
             });
     }
 
+    /**
+     * Streams changes of targets made by anyone, each event carries changes coalesced over short window.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<List<TargetChangeDTO>>> getTargetChanges() {
+        return changeFeed.subscribe()
+            .map((changes) -> ServerSentEvent.builder(changes)
+                .event("target-changes")
+                .build())
+            .transform((events) -> metrics.stream("/v1/targets/changes", "sse", events));
+    }
+
     @GetMapping("/{targetID}/dto")
     public Mono<TargetDTO> getTargetDto(@PathVariable @Min(0) Long targetID) {
         return targetService.getUpdateTargetDTO(targetID);
     }
 
+    /**
+     * @param fields Comma separated fields to return, all of them by default.
+     */
     @GetMapping("/{targetID}")
-    public Mono<TargetDetailsDTO> getTarget(@PathVariable @Min(0) Long targetID) {
-        return targetService.getTargetDTO(targetID);
+    public Mono<TargetDetailsDTO> getTarget(@PathVariable @Min(0) Long targetID,
+        @RequestParam(required = false) String fields) {
+        return targetService.getTargetDTO(targetID, TargetField.parse(fields, TargetField.DETAILS));
+    }
+
+    /**
+     * Sends stored swagger as is, without parsing. Document is fetched whole in single query and written in chunks
+     * wrapping its bytes, so it's held in memory once, without copies. Responses carry weak ETag of the document
+     * content, so compressed and plain responses share it, and known document isn't even fetched from database.
+     */
+    @GetMapping("/{targetID}/swagger")
+    public Mono<Void> getSwagger(@PathVariable @Min(0) Long targetID, ServerWebExchange exchange) {
+        List<String> knownHashes = exchange.getRequest()
+            .getHeaders()
+            .getIfNoneMatch()
+            .stream()
+            .map((etag) -> etag.replaceFirst("^W/", "").replace("\"", ""))
+            .toList();
+        return targetService.getSwagger(targetID, knownHashes)
+            .flatMap((document) -> {
+                ServerHttpResponse response = exchange.getResponse();
+                response.getHeaders().setCacheControl(CacheControl.noCache().cachePrivate());
+                if (exchange.checkNotModified("W/\"" + document.hash() + "\""))
+                    return response.setComplete();
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response.writeWith(toChunks(document, response.bufferFactory()));
+            });
+    }
+
+    /**
+     * Wraps document content into chunks without copying it.
+     */
+    private Flux<DataBuffer> toChunks(SwaggerDocumentDTO document, DataBufferFactory bufferFactory) {
+        byte[] content = document.content();
+        int chunkCount = (content.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return Flux.range(0, chunkCount)
+            .map((i) -> {
+                int offset = i * CHUNK_SIZE;
+                int length = Math.min(CHUNK_SIZE, content.length - offset);
+                return bufferFactory.wrap(ByteBuffer.wrap(content, offset, length).slice());
+            });
     }
 
+    /**
+     * Streams the page as one event per entry. Client reconnecting with {@code Last-Event-ID} gets only the rest of
+     * the page, without pagination headers.
+     */
     @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<TargetEntryDTO>> getTargetPage(
         @RequestParam(required = false) String query,
         @RequestParam(defaultValue = "0") @Min(0) int page,
         @RequestParam(defaultValue = "20") @Min(1) int size,
+        @RequestParam(required = false) String fields,
+        @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventID,
+        ServerHttpResponse response) {
+        return fetchIndexedPage(query, page, size, fields, lastEventID, response)
+            .map((entry) -> ServerSentEvent.builder(entry.getT2())
+                .event("targets")
+                .id(entry.getT1().toEventID())
+                .retry(Duration.ofSeconds(3))
+                .build())
+            .transform((events) -> metrics.stream("/v1/targets", "sse", events));
+    }
+
+    /**
+     * Streams the page as events carrying arrays of entries, batch ends when it's full or its time window passes.
+     * Event ID is position of the last entry in batch, so batched stream resumes like the single entry one.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE, params = "batched=true")
+    public Flux<ServerSentEvent<List<TargetEntryDTO>>> getTargetPageBatched(
+        @RequestParam(required = false) String query,
+        @RequestParam(defaultValue = "0") @Min(0) int page,
+        @RequestParam(defaultValue = "20") @Min(1) int size,
+        @RequestParam(required = false) String fields,
+        @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventID,
+        ServerHttpResponse response) {
+        return fetchIndexedPage(query, page, size, fields, lastEventID, response)
+            .bufferTimeout(streamProperties.getBatchSize(), streamProperties.getBatchWindow())
+            .map((batch) -> {
+                var last = batch.getLast();
+                return ServerSentEvent.builder(batch.stream()
+                    .map(Tuple2::getT2)
+                    .toList())
+                    .event("targets-batch")
+                    .id(last.getT1().toEventID())
+                    .retry(Duration.ofSeconds(3))
+                    .build();
+            })
+            .transform((events) -> metrics.stream("/v1/targets", "sse-batched", events));
+    }
+
+    /**
+     * Streams the page as newline delimited JSON, flushed in batches.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Void> getTargetPageNdjson(
+        @RequestParam(required = false) String query,
+        @RequestParam(defaultValue = "0") @Min(0) int page,
+        @RequestParam(defaultValue = "20") @Min(1) int size,
+        @RequestParam(required = false) String fields,
+        ServerHttpResponse response) {
+        return ndjsonWriter.write(response, fetchPage(query, page, size, TargetField.parse(fields, TargetField.ENTRY),
+            response)
+            .transform((entries) -> metrics.stream("/v1/targets", "ndjson", entries)));
+    }
+
+    /**
+     * Fetches entries with their position within the page. Resumes after position from last event ID if there is
+     * one. Search results are sorted by name, so name is fetched for the position even if client didn't request it,
+     * and search position without name starts the page over.
+     */
+    private Flux<Tuple2<StreamPosition, TargetEntryDTO>> fetchIndexedPage(String query, int page, int size,
+        String fields, String lastEventID, ServerHttpResponse response) {
+        final Set<TargetField> requested = TargetField.parse(fields, TargetField.ENTRY);
+        Set<TargetField> fetched = requested;
+        if (query != null && !requested.contains(TargetField.NAME)) {
+            fetched = EnumSet.copyOf(requested);
+            fetched.add(TargetField.NAME);
+        }
+        Optional<StreamPosition> resumeAfter = StreamPosition.parse(lastEventID)
+            .filter((after) -> query == null || after.name().isPresent());
+        Flux<Tuple2<Long, TargetEntryDTO>> entries;
+        if (resumeAfter.isEmpty())
+            entries = fetchPage(query, page, size, fetched, response).index();
+        else {
+            StreamPosition after = resumeAfter.get();
+            entries = targetService.resumeTargetPage(Optional.ofNullable(query), PageRequest.of(page, size), fetched,
+                after)
+                .index((i, entry) -> Tuples.of(after.index() + 1 + i, entry));
+        }
+        return entries.map((entry) -> toPositioned(query, entry.getT1(), entry.getT2(), requested));
+    }
+
+    /**
+     * Creates position of the entry, dropping name from the entry if it was fetched only for the position.
+     */
+    private Tuple2<StreamPosition, TargetEntryDTO> toPositioned(String query, long index, TargetEntryDTO entry,
+        Set<TargetField> requested) {
+        if (query == null)
+            return Tuples.of(new StreamPosition(entry.id(), index), entry);
+        StreamPosition position = new StreamPosition(entry.id(), index, Optional.ofNullable(entry.name()));
+        if (requested.contains(TargetField.NAME))
+            return Tuples.of(position, entry);
+        return Tuples.of(position, new TargetEntryDTO(entry.id(), null, entry.url(), entry.tags(),
+            entry.lastScan()));
+    }
+
+    /**
+     * Fetches the page of entries, adding pagination headers to the response.
+     */
+    private Flux<TargetEntryDTO> fetchPage(String query, int page, int size, Set<TargetField> fields,
         ServerHttpResponse response) {
         PageRequest pageRequest = PageRequest.of(page, size);
-        return targetService.getTargetPage(Optional.ofNullable(query), pageRequest)
+        return targetService.getTargetPage(Optional.ofNullable(query), pageRequest, fields)
             .flatMapMany((tuple) -> {
                 response.getHeaders().addAll(tuple.getT1());
                 return tuple.getT2();
-            })
-            .map((target) -> ServerSentEvent.builder(target)
-                .event("targets")
-                .id(String.valueOf(target.id()))
-                .retry(Duration.ofSeconds(3))
-                .build());
+            });
     }
 }
@@ -1,39 +1,29 @@
 package artifixal.agrest.deserializer;
 
 import artifixal.agrest.dto.user.SecurePassword;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.CharsetEncoder;
-import java.nio.charset.CodingErrorAction;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import artifixal.agrest.memory.SecretBuffer;
+import artifixal.agrest.memory.SecretBufferPool;
 import tools.jackson.core.JacksonException;
 import tools.jackson.core.JsonParser;
 import tools.jackson.databind.DeserializationContext;
 import tools.jackson.databind.ValueDeserializer;
 
 /**
- * Deserialzies {@code SecurePassword} from JSON.
+ * Deserialzies {@code SecurePassword} from JSON. Parser chars are encoded straight into pooled off-heap buffer.
  */
 public class SecurePasswordDeserializer extends ValueDeserializer<SecurePassword> {
 
+    /**
+     * Max UTF-8 bytes per UTF-16 char.
+     */
+    private final static int MAX_BYTES_PER_CHAR = 3;
+
     @Override
     public SecurePassword deserialize(JsonParser p, DeserializationContext ctxt) throws JacksonException {
-        final CharsetEncoder encoder = StandardCharsets.UTF_8
-            .newEncoder()
-            .onMalformedInput(CodingErrorAction.REPLACE)
-            .onUnmappableCharacter(CodingErrorAction.REPLACE);
-        CharBuffer charBuff = CharBuffer.wrap(p.getStringCharacters(),
-            p.getStringOffset(), p.getStringLength());
-        ByteBuffer byteBuff = ByteBuffer.allocate(p.getStringLength() * 4);
-        encoder.encode(charBuff, byteBuff, true);
-        encoder.flush(byteBuff);
-        byteBuff.flip();
-        int length = byteBuff.remaining();
-        byte[] secret = new byte[length];
-        byteBuff.get(secret);
-        if (byteBuff.hasArray())
-            Arrays.fill(byteBuff.array(), (byte) 0);
-        return new SecurePassword(secret);
+        int length = p.getStringLength();
+        SecretBuffer buffer = SecretBufferPool.shared()
+            .acquire(length * MAX_BYTES_PER_CHAR);
+        buffer.appendUtf8(p.getStringCharacters(), p.getStringOffset(), length);
+        return new SecurePassword(buffer);
     }
 }
@@ -0,0 +1,13 @@
+package artifixal.agrest.dto;
+
+import java.util.List;
+
+/**
+ * DTO transporting batch of single use CSRF tokens.
+ *
+ * @param tokens Tokens to be used in order.
+ * @param ttl Seconds after which tokens are invalid.
+ */
+public record CsrfTokensDTO(List<String> tokens, int ttl) {
+
+}
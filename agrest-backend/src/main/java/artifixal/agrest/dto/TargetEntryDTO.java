@@ -1,11 +1,14 @@
 package artifixal.agrest.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import java.util.Optional;
 
 /**
- * DTO list entry with information about single {@code Target}.
+ * DTO list entry with information about single {@code Target}. Fields which client didn't request are {@code null}
+ * and aren't serialized.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record TargetEntryDTO(long id, String name, String url, List<TagDTO> tags,
     Optional<LastScanSummaryDTO> lastScan) {
 
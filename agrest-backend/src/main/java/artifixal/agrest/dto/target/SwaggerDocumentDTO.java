@@ -0,0 +1,11 @@
+package artifixal.agrest.dto.target;
+
+/**
+ * DTO transporting stored OpenAPI document of {@code Target} as raw JSON.
+ *
+ * @param hash Hash of the document, {@code null} if target has none.
+ * @param content UTF-8 JSON, {@code null} if caller already has document with this hash.
+ */
+public record SwaggerDocumentDTO(String hash, byte[] content) {
+
+}
@@ -0,0 +1,11 @@
+package artifixal.agrest.dto.target;
+
+/**
+ * DTO transporting notification about changed {@code Target}.
+ *
+ * @param id ID of changed target.
+ * @param operation INSERT, UPDATE or DELETE.
+ */
+public record TargetChangeDTO(long id, String operation) {
+
+}
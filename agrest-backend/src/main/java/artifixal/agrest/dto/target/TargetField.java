@@ -0,0 +1,83 @@
+package artifixal.agrest.dto.target;
+
+import artifixal.agrest.exceptions.InvalidFieldsException;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * Fields of {@code Target} which client can request from read endpoints. Fields which weren't requested are neither
+ * selected from database nor serialized.
+ */
+@Getter
+public enum TargetField {
+    NAME("name", true),
+    URL("url", true),
+    DESCRIPTION("description", false),
+    /**
+     * Requires join with tags.
+     */
+    TAGS(null, true),
+    HEADERS("headers", false),
+    COOKIES("cookies", false),
+    CREATED("created", false),
+    EDITED("edited", false);
+
+    /**
+     * Column of targets table, {@code null} if field isn't a column.
+     */
+    private final String column;
+
+    /**
+     * Is field available on target list?
+     */
+    private final boolean listed;
+
+    private TargetField(String column, boolean listed) {
+        this.column = column;
+        this.listed = listed;
+    }
+
+    /**
+     * Fields of target details.
+     */
+    public final static Set<TargetField> DETAILS = EnumSet.allOf(TargetField.class);
+
+    /**
+     * Fields of target list entry.
+     */
+    public final static Set<TargetField> ENTRY = EnumSet.of(NAME, URL, TAGS);
+
+    /**
+     * Parses comma separated field names, ID is always returned so it doesn't have to be listed.
+     *
+     * @param fields Requested fields, {@code null} or blank for all available ones.
+     * @param available Which fields can be requested.
+     *
+     * @return Requested fields.
+     *
+     * @throws InvalidFieldsException If any of fields is unknown or unavailable.
+     */
+    public static Set<TargetField> parse(String fields, Set<TargetField> available) {
+        if (fields == null || fields.isBlank())
+            return available;
+        EnumSet<TargetField> result = EnumSet.noneOf(TargetField.class);
+        for (String field : fields.split(",")) {
+            String name = field.strip()
+                .toUpperCase(Locale.ROOT);
+            if (name.isEmpty() || name.equals("ID"))
+                continue;
+            TargetField parsed;
+            try {
+                parsed = valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidFieldsException(field.strip(), available);
+            }
+            if (!available.contains(parsed))
+                throw new InvalidFieldsException(field.strip(), available);
+            result.add(parsed);
+        }
+        return result;
+    }
+}
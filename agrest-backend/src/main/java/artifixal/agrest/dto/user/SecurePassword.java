@@ -2,24 +2,54 @@ package artifixal.agrest.dto.user;
 
 import artifixal.agrest.deserializer.SecurePasswordDeserializer;
 import artifixal.agrest.dto.vault.Eraseable;
+import artifixal.agrest.memory.SecretBuffer;
 import java.io.Closeable;
 import java.util.Arrays;
+import java.util.function.Function;
 import tools.jackson.databind.annotation.JsonDeserialize;
 
 /**
- * Wrapper around byte array to avoid String allocation.
+ * Wrapper around off-heap buffer to avoid String allocation and keep password out of movable heap. Has to be closed
+ * to return its memory to the pool.
  */
 @JsonDeserialize(using = SecurePasswordDeserializer.class)
 public class SecurePassword implements AutoCloseable, Closeable, Eraseable {
 
-    private byte[] value;
+    private final SecretBuffer buffer;
 
+    /**
+     * @param value Password bytes, zeroed after copying them off-heap.
+     */
     public SecurePassword(byte[] value) {
-        this.value = value;
+        this(SecretBuffer.of(value));
+        Arrays.fill(value, (byte) 0);
+    }
+
+    public SecurePassword(SecretBuffer buffer) {
+        this.buffer = buffer;
     }
 
+    /**
+     * Copies password to heap, prefer {@link #apply(Function)}.
+     *
+     * @return Copy which caller should zero after use.
+     */
     public byte[] getValue() {
-        return value;
+        return buffer.toArray();
+    }
+
+    /**
+     * @see SecretBuffer#apply(Function)
+     */
+    public <T> T apply(Function<byte[], T> action) {
+        return buffer.apply(action);
+    }
+
+    /**
+     * @return Independent copy, which has to be closed separately.
+     */
+    public SecurePassword copy() {
+        return new SecurePassword(buffer.copy());
     }
 
     @Override
@@ -29,6 +59,6 @@ public class SecurePassword implements AutoCloseable, Closeable, Eraseable {
 
     @Override
     public void clear() {
-        Arrays.fill(value, (byte) 0);
+        buffer.close();
     }
 }
@@ -0,0 +1,23 @@
+package artifixal.agrest.dto.user;
+
+import artifixal.agrest.entity.User;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Immutable subset of user state needed by authentication paths.
+ */
+public record UserSnapshot(UUID id, int role, boolean enabled, boolean locked, LocalDateTime expireDate) {
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getRole(), user.isEnabled(), user.isLocked(),
+            user.getExpireDate());
+    }
+
+    /**
+     * @return Can user authenticate?
+     */
+    public boolean isActive() {
+        return enabled && !locked && (expireDate == null || expireDate.isAfter(LocalDateTime.now()));
+    }
+}
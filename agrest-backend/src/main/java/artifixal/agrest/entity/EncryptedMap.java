@@ -0,0 +1,66 @@
+package artifixal.agrest.entity;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Map column stored encrypted under targets data key, used for target headers and cookies. Value read from database
+ * is kept as ciphertext and decrypted on first access, so rows whose secrets aren't used neither pay for decryption
+ * nor keep plaintext in memory. Value is encrypted again with the active key on each write.
+ */
+public class EncryptedMap {
+
+    private final byte[] stored;
+    private Function<byte[], Map<String, String>> decryptor;
+    private volatile Map<String, String> value;
+
+    private EncryptedMap(byte[] stored, Function<byte[], Map<String, String>> decryptor, Map<String, String> value) {
+        this.stored = stored;
+        this.decryptor = decryptor;
+        this.value = value;
+    }
+
+    /**
+     * @param value Plain map.
+     *
+     * @return Map encrypted on write.
+     */
+    public static EncryptedMap of(Map<String, String> value) {
+        return new EncryptedMap(null, null, value);
+    }
+
+    /**
+     * @param stored UTF-8 JSON as read from database, not copied.
+     * @param decryptor Decrypts stored bytes on first access.
+     *
+     * @return Still encrypted map.
+     */
+    public static EncryptedMap ofStored(byte[] stored, Function<byte[], Map<String, String>> decryptor) {
+        return new EncryptedMap(stored, decryptor, null);
+    }
+
+    /**
+     * @return Plain map, decrypted on first call.
+     */
+    public Map<String, String> get() {
+        Map<String, String> result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = decryptor.apply(stored);
+                    value = result;
+                    decryptor = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Was value already decrypted?
+     */
+    public boolean isDecrypted() {
+        return value != null;
+    }
+}
@@ -0,0 +1,68 @@
+package artifixal.agrest.entity;
+
+import artifixal.agrest.serializer.LazyJsonSerializer;
+import java.util.function.Function;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * JSON value kept as raw UTF-8 bytes and parsed on first access, so rows pay parse CPU only for columns caller
+ * actually reads. Unchanged value is written back to database and to HTTP responses as the same bytes, without
+ * parsing.
+ *
+ * @param <T> Type of parsed value.
+ */
+@JsonSerialize(using = LazyJsonSerializer.class)
+public class LazyJson<T> {
+
+    private final byte[] raw;
+    private Function<byte[], T> parser;
+    private volatile T value;
+
+    private LazyJson(byte[] raw, Function<byte[], T> parser) {
+        this.raw = raw;
+        this.parser = parser;
+    }
+
+    /**
+     * @param <T> Type of parsed value.
+     * @param raw UTF-8 JSON, not copied.
+     * @param parser Parses raw bytes on first access.
+     *
+     * @return Unparsed value.
+     */
+    public static <T> LazyJson<T> of(byte[] raw, Function<byte[], T> parser) {
+        return new LazyJson<>(raw, parser);
+    }
+
+    /**
+     * @return Parsed value, parsed on first call.
+     */
+    public T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = parser.apply(raw);
+                    value = result;
+                    parser = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return UTF-8 JSON as read from database, must not be modified.
+     */
+    public byte[] raw() {
+        return raw;
+    }
+
+    /**
+     * @return Was value already parsed?
+     */
+    public boolean isParsed() {
+        return value != null;
+    }
+}
@@ -2,7 +2,6 @@ package artifixal.agrest.entity;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -27,27 +26,27 @@ public class Target extends AuditableEntity<Long> {
     private String description;
 
     /**
-     * OpenAPI site map.
+     * OpenAPI site map, parsed only when accessed.
      */
-    private JsonNode swagger;
+    private LazyJson<JsonNode> swagger;
 
     /**
-     * Map of custom headers included in requests during scan.
+     * Map of custom headers included in requests during scan, stored encrypted.
      *
      * <p>
      * Key - header name <br>
      * Value - header value
      */
-    private Map<String, String> headers;
+    private EncryptedMap headers;
 
     /**
-     * Map of custom cookies included in requests during scan.
+     * Map of custom cookies included in requests during scan, stored encrypted.
      *
      * <p>
      * Key - cookie name <br>
      * Value - cookie value
      */
-    private Map<String, String> cookies;
+    private EncryptedMap cookies;
 
     /**
      * List of tags related to this target.
@@ -55,13 +54,13 @@ public class Target extends AuditableEntity<Long> {
     @Transient
     private List<Tag> tags;
 
-    public Target(String name, String url, String description, JsonNode swagger, Map<String, String> headers,
-        Map<String, String> cookies) {
+    public Target(String name, String url, String description, LazyJson<JsonNode> swagger, EncryptedMap headers,
+        EncryptedMap cookies) {
         this(null, name, url, description, swagger, headers, cookies);
     }
 
-    public Target(Long id, String name, String url, String description, JsonNode swagger, Map<String, String> headers,
-        Map<String, String> cookies) {
+    public Target(Long id, String name, String url, String description, LazyJson<JsonNode> swagger,
+        EncryptedMap headers, EncryptedMap cookies) {
         super(id);
         this.name = name;
         this.url = url;
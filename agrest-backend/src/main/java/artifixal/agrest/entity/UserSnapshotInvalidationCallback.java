@@ -0,0 +1,26 @@
+package artifixal.agrest.entity;
+
+import artifixal.agrest.services.UserSnapshotCache;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.mapping.event.AfterSaveCallback;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Callback dropping cached snapshot of saved {@code User}, so changes like lock or disable take effect at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserSnapshotInvalidationCallback implements AfterSaveCallback<User> {
+
+    private final UserSnapshotCache snapshotCache;
+
+    @Override
+    public Publisher<User> onAfterSave(User entity, OutboundRow outboundRow, SqlIdentifier table) {
+        snapshotCache.invalidate(entity.getId());
+        return Mono.just(entity);
+    }
+}
@@ -0,0 +1,26 @@
+package artifixal.agrest.entity.converter;
+
+import artifixal.agrest.entity.EncryptedMap;
+import io.r2dbc.postgresql.codec.Json;
+import lombok.AllArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+
+/**
+ * Converts {@code EncryptedMap} to encrypted {@code Json}. Plain {@code Map} columns aren't converted, so only
+ * columns declared as {@code EncryptedMap} get encrypted.
+ *
+ * @see JsonbMapCodec
+ */
+@WritingConverter
+@AllArgsConstructor
+public class EncryptedMapToJsonbConverter implements Converter<EncryptedMap, Json> {
+
+    private final JsonbMapCodec codec;
+
+    @Override
+    public Json convert(EncryptedMap source) {
+        // Encrypted again, so values move to the active key
+        return codec.write(source.get());
+    }
+}
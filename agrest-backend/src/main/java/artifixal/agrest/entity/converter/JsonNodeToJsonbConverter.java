@@ -1,19 +1,25 @@
 package artifixal.agrest.entity.converter;
 
 import io.r2dbc.postgresql.codec.Json;
+import lombok.AllArgsConstructor;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.convert.WritingConverter;
 import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
 
 /**
- * Converts {@code JsonNode} to {@code String}.
+ * Converts {@code JsonNode} to {@code Json}. Node is written straight to UTF-8 bytes, skipping string.
  */
 @WritingConverter
+@AllArgsConstructor
 public class JsonNodeToJsonbConverter implements Converter<JsonNode, Json> {
 
+    private final ObjectMapper mapper;
+
     @Override
     public Json convert(JsonNode source) {
-        String jsonText = source.isEmpty() ? "" : source.toString();
-        return Json.of(jsonText);
+        if (source.isEmpty())
+            return Json.of("");
+        return Json.of(mapper.writeValueAsBytes(source));
     }
 }
@@ -0,0 +1,176 @@
+package artifixal.agrest.entity.converter;
+
+import artifixal.agrest.exceptions.DecryptionException;
+import artifixal.agrest.memory.SecretBufferOutputStream;
+import artifixal.agrest.memory.SecretBufferPool;
+import artifixal.agrest.services.crypto.FieldEncryptionService;
+import io.r2dbc.postgresql.codec.Json;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Streaming codec of {@code Map<String, String>} jsonb columns. Maps are written token by token into pooled off-heap
+ * buffer, which is encrypted without copying it to heap and zeroed on release. Values are read straight from the given
+ * buffer without copying it into array or string first. Maps are encrypted under targets data key, as only target
+ * headers and cookies are stored through the codec. Values stored before encryption was introduced are read as they
+ * are and encrypted on next write.
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonbMapCodec {
+
+    /**
+     * Initial buffer size per map entry.
+     */
+    private final static int ENTRY_SIZE_ESTIMATE = 48;
+
+    /**
+     * Off-heap buffers for plaintext, large maps past the biggest class are allocated per write.
+     */
+    private final static SecretBufferPool BUFFER_POOL = new SecretBufferPool(64 * 1024, 16);
+
+    private final ObjectMapper mapper;
+    private final FieldEncryptionService encryptionService;
+
+    /**
+     * @param map Map to write, {@code null} is written as empty map.
+     *
+     * @return Encrypted jsonb value.
+     */
+    public Json write(Map<String, String> map) {
+        try (SecretBufferOutputStream out = serialize((map == null) ? Map.of() : map)) {
+            return Json.of(out.buffer()
+                .applyDirect((plaintext) -> encryptionService.encrypt(FieldEncryptionService.TARGETS_SCOPE,
+                    plaintext)));
+        }
+    }
+
+    /**
+     * @param json Jsonb value.
+     *
+     * @return Decrypted map, empty one if value is blank.
+     */
+    public Map<String, String> read(Json json) {
+        return json.mapInputStream(this::read);
+    }
+
+    /**
+     * @param json Plain or encrypted UTF-8 JSON.
+     *
+     * @return Decrypted map, empty one if there is no content.
+     */
+    public Map<String, String> read(byte[] json) {
+        return read(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * @param in Plain or encrypted JSON.
+     *
+     * @return Decrypted map, empty one if there is no content.
+     */
+    public Map<String, String> read(InputStream in) {
+        try (JsonParser p = mapper.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT)
+                return Map.of();
+            p.nextToken();
+            if (p.currentToken() == JsonToken.PROPERTY_NAME
+                && FieldEncryptionService.ENVELOPE_FIELD.equals(p.currentName())) {
+                if (p.nextToken() == JsonToken.START_OBJECT)
+                    return readEnvelope(p);
+                // Plain map which happens to have such key
+                Map<String, String> map = new HashMap<>();
+                map.put(FieldEncryptionService.ENVELOPE_FIELD, readValue(p));
+                p.nextToken();
+                return readEntries(p, map);
+            }
+            return readEntries(p, new HashMap<>());
+        }
+    }
+
+    /**
+     * Writes map as plain JSON.
+     *
+     * @param map Map to write.
+     *
+     * @return Map as UTF-8 JSON, which caller should zero.
+     */
+    public byte[] serializePlain(Map<String, String> map) {
+        try (SecretBufferOutputStream out = serialize(map)) {
+            return out.buffer()
+                .toArray();
+        }
+    }
+
+    /**
+     * Serializes map into pooled buffer sized up front by entry count, so small maps don't grow it.
+     *
+     * @return Stream holding the JSON, which caller has to close.
+     */
+    private SecretBufferOutputStream serialize(Map<String, String> map) {
+        SecretBufferOutputStream out = new SecretBufferOutputStream(BUFFER_POOL, 2 + map.size()
+            * ENTRY_SIZE_ESTIMATE);
+        try (JsonGenerator gen = mapper.createGenerator(out)) {
+            gen.writeStartObject();
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                gen.writeName(entry.getKey());
+                gen.writeString(entry.getValue());
+            }
+            gen.writeEndObject();
+        } catch (RuntimeException e) {
+            out.close();
+            throw e;
+        }
+        return out;
+    }
+
+    private Map<String, String> readEnvelope(JsonParser p) {
+        int keyID = -1;
+        byte[] data = null;
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (FieldEncryptionService.KEY_ID_FIELD.equals(name))
+                keyID = p.getIntValue();
+            else if (FieldEncryptionService.DATA_FIELD.equals(name))
+                data = p.getBinaryValue();
+            else
+                p.skipChildren();
+        }
+        if (keyID < 0 || data == null)
+            throw new DecryptionException("Malformed encrypted value");
+        byte[] plaintext = encryptionService.decrypt(FieldEncryptionService.TARGETS_SCOPE, keyID, data);
+        try (JsonParser inner = mapper.createParser(plaintext)) {
+            inner.nextToken();
+            inner.nextToken();
+            return readEntries(inner, new HashMap<>());
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    /**
+     * Reads entries until end of object, parser has to be at property name or end of object.
+     */
+    private Map<String, String> readEntries(JsonParser p, Map<String, String> map) {
+        while (p.currentToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            map.put(name, readValue(p));
+            p.nextToken();
+        }
+        return map;
+    }
+
+    private String readValue(JsonParser p) {
+        return (p.currentToken() == JsonToken.VALUE_NULL) ? null : p.getString();
+    }
+}
@@ -0,0 +1,37 @@
+package artifixal.agrest.entity.converter;
+
+import artifixal.agrest.entity.EncryptedMap;
+import io.r2dbc.postgresql.codec.Json;
+import lombok.AllArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Converts {@code Json} to {@code EncryptedMap}, decrypted only when accessed.
+ *
+ * @see JsonbMapCodec
+ */
+@ReadingConverter
+@AllArgsConstructor
+public class JsonbToEncryptedMapConverter implements Converter<Json, EncryptedMap> {
+
+    private final JsonbMapCodec codec;
+
+    @Override
+    public EncryptedMap convert(Json source) {
+        return toEncryptedMap(source, codec);
+    }
+
+    /**
+     * @param source Jsonb value.
+     * @param codec Codec decrypting the value.
+     *
+     * @return Map decrypted on first access, {@code null} for {@code null} value.
+     */
+    public static EncryptedMap toEncryptedMap(Json source, JsonbMapCodec codec) {
+        if (source == null)
+            return null;
+        // Driver buffer doesn't outlive the row
+        return EncryptedMap.ofStored(source.asArray(), codec::read);
+    }
+}
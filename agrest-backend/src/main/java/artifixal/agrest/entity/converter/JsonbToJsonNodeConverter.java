@@ -8,7 +8,7 @@ import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
 /**
- *
+ * Converts {@code Json} to {@code JsonNode}, parsing it straight from the driver's buffer.
  */
 @ReadingConverter
 @AllArgsConstructor
@@ -18,8 +18,10 @@ public class JsonbToJsonNodeConverter implements Converter<Json, JsonNode> {
 
     @Override
     public JsonNode convert(Json source) {
-        if (source == null || source.asString().isBlank())
+        if (source == null)
             return null;
-        return mapper.readValue(source.asString(), JsonNode.class);
+        JsonNode node = source.mapInputStream((in) -> mapper.readTree(in));
+        // Blank value
+        return (node == null || node.isMissingNode()) ? null : node;
     }
 }
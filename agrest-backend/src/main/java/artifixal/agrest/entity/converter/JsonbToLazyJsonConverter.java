@@ -0,0 +1,47 @@
+package artifixal.agrest.entity.converter;
+
+import artifixal.agrest.entity.LazyJson;
+import io.r2dbc.postgresql.codec.Json;
+import lombok.AllArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Converts {@code Json} to {@code LazyJson} of {@code JsonNode}, parsed only when accessed.
+ */
+@ReadingConverter
+@AllArgsConstructor
+public class JsonbToLazyJsonConverter implements Converter<Json, LazyJson<JsonNode>> {
+
+    private final ObjectMapper mapper;
+
+    @Override
+    public LazyJson<JsonNode> convert(Json source) {
+        return toLazyNode(source, mapper);
+    }
+
+    /**
+     * @param source Jsonb value.
+     * @param mapper Mapper parsing the value.
+     *
+     * @return Lazy node, {@code null} for blank value.
+     */
+    public static LazyJson<JsonNode> toLazyNode(Json source, ObjectMapper mapper) {
+        if (source == null)
+            return null;
+        // Driver buffer doesn't outlive the row
+        byte[] raw = source.asArray();
+        if (isBlank(raw))
+            return null;
+        return LazyJson.of(raw, (bytes) -> mapper.readTree(bytes));
+    }
+
+    private static boolean isBlank(byte[] raw) {
+        for (byte b : raw)
+            if (!Character.isWhitespace(b))
+                return false;
+        return true;
+    }
+}
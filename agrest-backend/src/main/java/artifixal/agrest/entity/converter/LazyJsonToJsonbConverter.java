@@ -0,0 +1,18 @@
+package artifixal.agrest.entity.converter;
+
+import artifixal.agrest.entity.LazyJson;
+import io.r2dbc.postgresql.codec.Json;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+
+/**
+ * Converts {@code LazyJson} to {@code Json}, writing raw bytes back without serialization.
+ */
+@WritingConverter
+public class LazyJsonToJsonbConverter implements Converter<LazyJson<?>, Json> {
+
+    @Override
+    public Json convert(LazyJson<?> source) {
+        return Json.of(source.raw());
+    }
+}
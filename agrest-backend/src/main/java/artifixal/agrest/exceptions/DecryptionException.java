@@ -0,0 +1,15 @@
+package artifixal.agrest.exceptions;
+
+/**
+ * Exception thrown when stored data can't be decrypted, due to tampering or missing key.
+ */
+public class DecryptionException extends RuntimeException {
+
+    public DecryptionException(String msg) {
+        super(msg);
+    }
+
+    public DecryptionException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
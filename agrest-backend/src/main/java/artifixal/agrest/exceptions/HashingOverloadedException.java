@@ -0,0 +1,11 @@
+package artifixal.agrest.exceptions;
+
+/**
+ * Exception thrown when password hashing executor can't accept more work.
+ */
+public class HashingOverloadedException extends RuntimeException {
+
+    public HashingOverloadedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,23 @@
+package artifixal.agrest.exceptions;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/**
+ * Exception thrown when client requested field which is unknown or unavailable on the given endpoint.
+ */
+@Getter
+public class InvalidFieldsException extends RuntimeException {
+
+    private final String field;
+
+    public InvalidFieldsException(String field, Set<? extends Enum<?>> availableFields) {
+        super("Unavailable field: " + field + ". Available fields: id, " +
+            availableFields.stream()
+                .map((available) -> available.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(", ")));
+        this.field = field;
+    }
+}
@@ -0,0 +1,21 @@
+package artifixal.agrest.exceptions;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Exception thrown when login is rejected due to too many failed attempts.
+ */
+@Getter
+public class LoginThrottledException extends RuntimeException {
+
+    /**
+     * After how long client may try again.
+     */
+    private final Duration retryAfter;
+
+    public LoginThrottledException(String msg, Duration retryAfter) {
+        super(msg);
+        this.retryAfter = retryAfter;
+    }
+}
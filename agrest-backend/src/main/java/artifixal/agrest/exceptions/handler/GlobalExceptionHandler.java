@@ -2,8 +2,12 @@ package artifixal.agrest.exceptions.handler;
 
 import artifixal.agrest.dto.ErrorDTO;
 import artifixal.agrest.exceptions.EntityNotFoundException;
+import artifixal.agrest.exceptions.HashingOverloadedException;
+import artifixal.agrest.exceptions.InvalidFieldsException;
 import artifixal.agrest.exceptions.JsonPatchException;
+import artifixal.agrest.exceptions.LoginThrottledException;
 import artifixal.agrest.exceptions.page.PaginationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -60,4 +64,31 @@ public class GlobalExceptionHandler {
         return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
             .body(dto));
     }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    public Mono<ResponseEntity<ErrorDTO>> handleInvalidFields(InvalidFieldsException ex, ServerWebExchange exchange) {
+        ErrorDTO dto = new ErrorDTO(ex.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body(dto));
+    }
+
+    @ExceptionHandler(HashingOverloadedException.class)
+    public Mono<ResponseEntity<ErrorDTO>> handleHashingOverloaded(HashingOverloadedException ex,
+        ServerWebExchange exchange) {
+        ErrorDTO dto = new ErrorDTO("Server is busy, try again later");
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(dto));
+    }
+
+    @ExceptionHandler(LoginThrottledException.class)
+    public Mono<ResponseEntity<ErrorDTO>> handleLoginThrottled(LoginThrottledException ex,
+        ServerWebExchange exchange) {
+        ErrorDTO dto = new ErrorDTO(ex.getMessage());
+        // Round up so that client doesn't retry too early
+        long retryAfter = (ex.getRetryAfter().toMillis() + 999) / 1000;
+        return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+            .body(dto));
+    }
 }
@@ -56,9 +56,10 @@ public class PerRequestCsrfWebFilter implements WebFilter {
             .getFirst(CsrfService.CSRF_HEADER);
         HttpCookie csrfCookie = request.getCookies()
             .getFirst(CsrfService.CSRF_COOKIE);
-        if (csrfCookie == null || csrfCookie.getValue().isBlank())
+        if (csrfHeader == null || csrfHeader.isBlank())
             return rejectRequest(exchange);
-        if (!csrfCookie.getValue().equals(csrfHeader))
+        // Batch issued tokens are sent only in header, cookie if present must match
+        if (csrfCookie != null && !csrfCookie.getValue().isBlank() && !csrfCookie.getValue().equals(csrfHeader))
             return rejectRequest(exchange);
         return csrfService.validateToken(csrfHeader)
             .flatMap((valid) -> {
@@ -0,0 +1,200 @@
+package artifixal.agrest.memory;
+
+import java.io.Closeable;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Secret bytes kept in pooled off-heap memory. Buffer is zeroed and returned to its pool on close, any later access
+ * fails.
+ */
+public class SecretBuffer implements AutoCloseable, Closeable {
+
+    private final SecretBufferPool pool;
+    private MemorySegment segment;
+    private int length;
+
+    SecretBuffer(SecretBufferPool pool, MemorySegment segment) {
+        this.pool = pool;
+        this.segment = segment;
+    }
+
+    /**
+     * Creates buffer holding copy of given bytes.
+     *
+     * @param value Bytes to copy.
+     *
+     * @return New buffer from shared pool.
+     */
+    public static SecretBuffer of(byte[] value) {
+        SecretBuffer buffer = SecretBufferPool.shared()
+            .acquire(value.length);
+        MemorySegment.copy(value, 0, buffer.segment, ValueLayout.JAVA_BYTE, 0, value.length);
+        buffer.length = value.length;
+        return buffer;
+    }
+
+    /**
+     * @return Count of written bytes.
+     */
+    public synchronized int length() {
+        return length;
+    }
+
+    /**
+     * @return Max count of bytes buffer can hold.
+     */
+    public synchronized int capacity() {
+        return (int) checkOpen().byteSize();
+    }
+
+    /**
+     * Encodes chars as UTF-8 at the end of buffer, without intermediate heap buffers. Unpaired surrogates are
+     * replaced with {@code '?'}. Buffer needs up to 3 bytes per char.
+     *
+     * @param chars Source array.
+     * @param offset Index of first char to encode.
+     * @param count Count of chars to encode.
+     */
+    public synchronized void appendUtf8(char[] chars, int offset, int count) {
+        MemorySegment target = checkOpen();
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c < 0x80)
+                put(target, c);
+            else if (c < 0x800) {
+                put(target, 0xC0 | (c >> 6));
+                put(target, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                int codePoint = Character.toCodePoint(c, chars[++i]);
+                put(target, 0xF0 | (codePoint >> 18));
+                put(target, 0x80 | ((codePoint >> 12) & 0x3F));
+                put(target, 0x80 | ((codePoint >> 6) & 0x3F));
+                put(target, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c))
+                put(target, '?');
+            else {
+                put(target, 0xE0 | (c >> 12));
+                put(target, 0x80 | ((c >> 6) & 0x3F));
+                put(target, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Copies bytes at the end of buffer.
+     *
+     * @param bytes Source array.
+     * @param offset Index of first byte to copy.
+     * @param count Count of bytes to copy.
+     *
+     * @throws IndexOutOfBoundsException If bytes don't fit.
+     */
+    public synchronized void append(byte[] bytes, int offset, int count) {
+        MemorySegment.copy(bytes, offset, checkOpen(), ValueLayout.JAVA_BYTE, length, count);
+        length += count;
+    }
+
+    private void put(MemorySegment target, int value) {
+        target.set(ValueLayout.JAVA_BYTE, length++, (byte) value);
+    }
+
+    /**
+     * @return New buffer from the same pool with copy of the content.
+     */
+    public synchronized SecretBuffer copy() {
+        MemorySegment source = checkOpen();
+        SecretBuffer copy = pool.acquire(length);
+        MemorySegment.copy(source, 0, copy.segment, 0, length);
+        copy.length = length;
+        return copy;
+    }
+
+    /**
+     * Moves content into larger buffer from the same pool and releases this one, so no unzeroed copy is left behind.
+     *
+     * @param capacity Min capacity of new buffer.
+     *
+     * @return New buffer with the content.
+     */
+    public synchronized SecretBuffer grow(int capacity) {
+        MemorySegment source = checkOpen();
+        SecretBuffer grown = pool.acquire(Math.max(capacity, length));
+        MemorySegment.copy(source, 0, grown.segment, 0, length);
+        grown.length = length;
+        close();
+        return grown;
+    }
+
+    /**
+     * Copies content to heap for APIs which accept only arrays. Caller is responsible for zeroing returned array.
+     *
+     * @return Copy of the content, zeroed array of the same length if buffer was already released.
+     */
+    public synchronized byte[] toArray() {
+        if (segment == null)
+            return new byte[length];
+        return checkOpen().asSlice(0, length)
+            .toArray(ValueLayout.JAVA_BYTE);
+    }
+
+    /**
+     * Passes heap copy of the content to action and zeroes the copy right after, so it lives only as long as the
+     * action.
+     *
+     * @param <T> Result type.
+     * @param action Action needing the content as array. Must not keep the array.
+     *
+     * @return Result of the action.
+     */
+    public <T> T apply(Function<byte[], T> action) {
+        // Copy under lock only, so close doesn't wait for action
+        byte[] value;
+        synchronized (this) {
+            value = checkOpen().asSlice(0, length)
+                .toArray(ValueLayout.JAVA_BYTE);
+        }
+        try {
+            return action.apply(value);
+        } finally {
+            Arrays.fill(value, (byte) 0);
+        }
+    }
+
+    /**
+     * Passes read only view of the content to action, without copying it to heap. Buffer can't be closed until action
+     * completes.
+     *
+     * @param <T> Result type.
+     * @param action Action reading the content. Must not keep the view.
+     *
+     * @return Result of the action.
+     */
+    public synchronized <T> T applyDirect(Function<ByteBuffer, T> action) {
+        return action.apply(checkOpen().asSlice(0, length)
+            .asByteBuffer()
+            .asReadOnlyBuffer());
+    }
+
+    /**
+     * Zeroes the content and returns memory to the pool. Calling it again has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (segment == null)
+            return;
+        segment.fill((byte) 0);
+        pool.release(segment);
+        segment = null;
+    }
+
+    private MemorySegment checkOpen() {
+        if (segment == null)
+            throw new IllegalStateException("Secret buffer already released");
+        return segment;
+    }
+}
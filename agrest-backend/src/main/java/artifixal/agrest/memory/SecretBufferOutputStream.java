@@ -0,0 +1,48 @@
+package artifixal.agrest.memory;
+
+import java.io.OutputStream;
+
+/**
+ * Stream writing into pooled {@code SecretBuffer}, for serializers which need {@code OutputStream}. Buffer grows by
+ * moving to larger one from the pool, previous one is zeroed right away. Closing the stream zeroes and releases the
+ * buffer.
+ */
+public class SecretBufferOutputStream extends OutputStream {
+
+    private SecretBuffer buffer;
+
+    /**
+     * @param pool Pool to take buffers from.
+     * @param initialCapacity Expected count of written bytes.
+     */
+    public SecretBufferOutputStream(SecretBufferPool pool, int initialCapacity) {
+        buffer = pool.acquire(initialCapacity);
+    }
+
+    @Override
+    public void write(int b) {
+        byte[] single = {(byte) b};
+        write(single, 0, 1);
+        single[0] = 0;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) {
+        int required = buffer.length() + count;
+        if (required > buffer.capacity())
+            buffer = buffer.grow(Math.max(required, buffer.capacity() * 2));
+        buffer.append(bytes, offset, count);
+    }
+
+    /**
+     * @return Buffer with written bytes, valid until the stream is closed or written to.
+     */
+    public SecretBuffer buffer() {
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        buffer.close();
+    }
+}
@@ -0,0 +1,80 @@
+package artifixal.agrest.memory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of off-heap memory for {@code SecretBuffer}s. Segments are grouped into power of two size classes and reused
+ * after release, so in steady state acquiring a buffer doesn't allocate memory for the secret. Off-heap memory isn't
+ * moved by GC, so no stray copies of secrets are left behind.
+ *
+ * <p>
+ * Segments come from automatic arena: buffer which is never released is freed once unreachable, without being
+ * zeroed.
+ */
+public class SecretBufferPool {
+
+    private final static int MIN_SIZE_SHIFT = 5;
+
+    /**
+     * Pool shared by deserializers, which are created by Jackson and can't be injected with one.
+     */
+    private final static SecretBufferPool SHARED = new SecretBufferPool(1024, 256);
+
+    private final List<ArrayBlockingQueue<MemorySegment>> sizeClasses;
+    private final int maxPooledSize;
+    private final Arena arena = Arena.ofAuto();
+
+    /**
+     * @param maxPooledSize Largest pooled segment size, rounded up to power of two. Larger buffers are allocated on
+     * each acquire.
+     * @param segmentsPerClass Max idle segments kept per size class.
+     */
+    public SecretBufferPool(int maxPooledSize, int segmentsPerClass) {
+        this.maxPooledSize = roundUp(maxPooledSize);
+        int classes = sizeClass(this.maxPooledSize) + 1;
+        sizeClasses = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++)
+            sizeClasses.add(new ArrayBlockingQueue<>(segmentsPerClass));
+    }
+
+    public static SecretBufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param capacity Max count of bytes buffer has to hold.
+     *
+     * @return Empty buffer.
+     */
+    public SecretBuffer acquire(int capacity) {
+        int size = roundUp(capacity);
+        MemorySegment segment = null;
+        if (size <= maxPooledSize)
+            segment = sizeClasses.get(sizeClass(size)).poll();
+        if (segment == null)
+            segment = arena.allocate(size);
+        return new SecretBuffer(this, segment);
+    }
+
+    /**
+     * Returns zeroed segment to the pool. Segment which doesn't fit is left to GC.
+     */
+    void release(MemorySegment segment) {
+        int size = (int) segment.byteSize();
+        if (size <= maxPooledSize)
+            sizeClasses.get(sizeClass(size)).offer(segment);
+    }
+
+    private static int roundUp(int capacity) {
+        int size = Math.max(capacity, 1 << MIN_SIZE_SHIFT);
+        return (Integer.bitCount(size) == 1) ? size : Integer.highestOneBit(size) << 1;
+    }
+
+    private static int sizeClass(int size) {
+        return Integer.numberOfTrailingZeros(size) - MIN_SIZE_SHIFT;
+    }
+}
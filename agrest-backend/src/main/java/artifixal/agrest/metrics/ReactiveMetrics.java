@@ -0,0 +1,142 @@
+package artifixal.agrest.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.ContextView;
+
+/**
+ * Records metrics of reactive pipelines. Timers measure from subscription to termination, so they include time
+ * spent waiting for I/O, and are tagged with endpoint, method and outcome. Endpoint is route pattern of the request
+ * which subscribed, {@value #NO_ENDPOINT} for work started outside of requests. Streams are counted per endpoint.
+ */
+@Component
+public class ReactiveMetrics {
+
+    /**
+     * Timer of service methods.
+     */
+    public final static String SERVICE = "agrest.service";
+
+    /**
+     * Timer of repository methods.
+     */
+    public final static String REPOSITORY = "agrest.repository";
+
+    /**
+     * Endpoint tag of work not triggered by request.
+     */
+    public final static String NO_ENDPOINT = "none";
+
+    private final static String STREAM_EVENTS = "agrest.sse.events";
+    private final static String STREAM_ACTIVE = "agrest.sse.active";
+
+    private record StreamKey(String endpoint, String format) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<StreamKey, AtomicInteger> activeStreams = new ConcurrentHashMap<>();
+
+    public ReactiveMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param name Timer name.
+     * @param method Measured method, in form {@code Class.method}.
+     * @param source Measured Mono.
+     *
+     * @return Mono recording time of each subscription.
+     */
+    public <T> Mono<T> timed(String name, String method, Mono<T> source) {
+        return Mono.deferContextual((context) -> {
+            String endpoint = endpoint(context);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return source.doFinally((signal) -> sample.stop(timer(name, method, endpoint, signal)));
+        });
+    }
+
+    /**
+     * @param name Timer name.
+     * @param method Measured method, in form {@code Class.method}.
+     * @param source Measured Flux.
+     *
+     * @return Flux recording time of each subscription until its last element.
+     */
+    public <T> Flux<T> timed(String name, String method, Flux<T> source) {
+        return Flux.deferContextual((context) -> {
+            String endpoint = endpoint(context);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return source.doFinally((signal) -> sample.stop(timer(name, method, endpoint, signal)));
+        });
+    }
+
+    /**
+     * Counts streamed items and streams which are currently open.
+     *
+     * @param endpoint Streaming endpoint path.
+     * @param format Stream format, like sse or ndjson.
+     * @param source Streamed items.
+     *
+     * @return Flux recording stream metrics.
+     */
+    public <T> Flux<T> stream(String endpoint, String format, Flux<T> source) {
+        Counter events = Counter.builder(STREAM_EVENTS)
+            .description("Items sent through streaming endpoints")
+            .tag("endpoint", endpoint)
+            .tag("format", format)
+            .register(meterRegistry);
+        AtomicInteger active = activeStreams.computeIfAbsent(new StreamKey(endpoint, format), (key) -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder(STREAM_ACTIVE, count, AtomicInteger::get)
+                .description("Currently open streams")
+                .tag("endpoint", endpoint)
+                .tag("format", format)
+                .register(meterRegistry);
+            return count;
+        });
+        return source.doOnSubscribe((subscription) -> active.incrementAndGet())
+            .doOnNext((item) -> events.increment())
+            .doFinally((signal) -> active.decrementAndGet());
+    }
+
+    private Timer timer(String name, String method, String endpoint, SignalType signal) {
+        return Timer.builder(name)
+            .tag("endpoint", endpoint)
+            .tag("method", method)
+            .tag("outcome", outcome(signal))
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Uses route pattern instead of request path, so path variables don't multiply time series.
+     */
+    private static String endpoint(ContextView context) {
+        return ServerWebExchangeContextFilter.getExchange(context)
+            .map((exchange) -> exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))
+            .map((pattern) -> (pattern instanceof PathPattern pathPattern)
+                ? pathPattern.getPatternString()
+                : pattern.toString())
+            .orElse(NO_ENDPOINT);
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "SUCCESS";
+            case ON_ERROR -> "ERROR";
+            case CANCEL -> "CANCELLED";
+            default -> "UNKNOWN";
+        };
+    }
+}
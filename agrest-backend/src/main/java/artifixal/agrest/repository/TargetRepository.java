@@ -2,9 +2,15 @@ package artifixal.agrest.repository;
 
 import artifixal.agrest.dto.TagDTO;
 import artifixal.agrest.dto.TargetEntryDTO;
+import artifixal.agrest.dto.target.SwaggerDocumentDTO;
 import artifixal.agrest.dto.target.TargetDetailsDTO;
+import artifixal.agrest.dto.target.TargetField;
 import artifixal.agrest.entity.Tag;
 import artifixal.agrest.entity.Target;
+import artifixal.agrest.entity.converter.JsonbMapCodec;
+import artifixal.agrest.entity.converter.JsonbToEncryptedMapConverter;
+import artifixal.agrest.entity.converter.JsonbToLazyJsonConverter;
+import artifixal.agrest.metrics.ReactiveMetrics;
 import artifixal.agrest.services.TagService;
 import io.r2dbc.postgresql.codec.Json;
 import io.r2dbc.spi.Row;
@@ -13,6 +19,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
@@ -21,7 +28,6 @@ import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
 /**
@@ -35,6 +41,8 @@ public class TargetRepository {
     private final ObjectMapper mapper;
     private final TagRepository tagRepository;
     private final TagService tagService;
+    private final JsonbMapCodec mapCodec;
+    private final ReactiveMetrics metrics;
 
     private interface TagRow {
         public Long tagID();
@@ -42,40 +50,59 @@ public class TargetRepository {
         public String tagName();
     }
 
-    private record TargetDetailRow(Long targetID, String targetName, String url,
-        String description, Map<String, String> headers, Map<String, String> cookies,
+    /**
+     * Headers and cookies are kept encrypted, as they repeat for each tag row. Fields which weren't requested are
+     * {@code null}.
+     */
+    private record TargetDetailRow(String targetName, String url, String description, Json headers, Json cookies,
         LocalDateTime created, LocalDateTime edited, Long tagID, String tagName) implements TagRow {
     }
 
-    public Mono<TargetDetailsDTO> findByID(Long targetID) {
-        String select = """
-            SELECT t.id,t.name,t.url,t.description,t.headers,t.cookies,t.created,t.edited,tg.id,tg.name
-            FROM targets t
-            LEFT JOIN targets_tags tt ON t.id=tt.target_id
-            LEFT JOIN tags tg ON tg.id=tt.tag_id
-            WHERE t.id = :id
-            """;
+    private final static String TAGS_JOIN = """
+        LEFT JOIN targets_tags tt ON t.id=tt.target_id
+        LEFT JOIN tags tg ON tg.id=tt.tag_id
+        """;
+
+    /**
+     * Fetches details of the given target, only requested fields are selected. Tags are joined only if requested.
+     *
+     * @param targetID Which target to fetch.
+     * @param fields Which fields to fetch.
+     *
+     * @return Mono with target details, fields which weren't requested are {@code null}.
+     */
+    public Mono<TargetDetailsDTO> findByID(Long targetID, Set<TargetField> fields) {
+        boolean withTags = fields.contains(TargetField.TAGS);
+        String select = "SELECT t.id" + selectColumns(fields)
+            + ((withTags) ? ",tg.id AS tag_id,tg.name AS tag_name" : "")
+            + "\nFROM targets t\n"
+            + ((withTags) ? TAGS_JOIN : "")
+            + "WHERE t.id = :id";
         return entityTemplate.getDatabaseClient()
             .sql(select)
             .bind("id", targetID)
-            .map(this::toTargetDetailsRow)
+            .map((row) -> toTargetDetailsRow(row, fields))
             .all()
             .collectList()
+            .filter((rows) -> !rows.isEmpty())
             .map((rows) -> {
-                var tags = collectTags(rows);
                 var row = rows.getFirst();
                 return new TargetDetailsDTO(targetID,
                     row.targetName(),
                     row.url(),
-                    Optional.ofNullable(row.description()),
-                    tags,
-                    Optional.ofNullable(row.headers()),
-                    Optional.ofNullable(row.cookies()),
+                    optionalIfRequested(fields, TargetField.DESCRIPTION, row.description()),
+                    (withTags) ? collectTags(rows) : null,
+                    optionalIfRequested(fields, TargetField.HEADERS, convertJsonToMap(row.headers())),
+                    optionalIfRequested(fields, TargetField.COOKIES, convertJsonToMap(row.cookies())),
                     row.created(),
-                    Optional.ofNullable(row.edited()));
-            });
+                    optionalIfRequested(fields, TargetField.EDITED, row.edited()));
+            })
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.findByID", result));
     }
 
+    /**
+     * Fields which weren't requested are {@code null}.
+     */
     private record TargetEntryRow(Long targetID, String targetName, String targetUrl) {
     }
 
@@ -83,32 +110,26 @@ public class TargetRepository {
      * Returns the given page of elements.
      *
      * @param page Page to get
+     * @param fields Which fields to fetch, tags are fetched only if requested.
      *
      * @return Flux containing targets with tags if they have any.
      */
-    public Flux<TargetEntryDTO> findAllBy(Pageable page) {
-        String select = """
-            SELECT t.id,t.name,t.url
+    public Flux<TargetEntryDTO> findAllBy(Pageable page, Set<TargetField> fields) {
+        String select = "SELECT t.id" + selectColumns(fields) + """
+
             FROM targets t
             ORDER BY t.id ASC
             LIMIT :limit OFFSET :offset
             """;
         long offset = page.getPageSize() * page.getPageNumber();
-        return entityTemplate.getDatabaseClient()
+        Flux<TargetEntryRow> rows = entityTemplate.getDatabaseClient()
             .sql(select)
             .bind("limit", page.getPageSize())
             .bind("offset", offset)
-            .map(this::toTargetEntryRow)
-            .all()
-            .flatMap((row) -> {
-                return tagRepository.findAllByTargetID(row.targetID)
-                    .collectList()
-                    .map((tags) -> {
-                        var dtoTags = tagService.toDTOList(tags);
-                        return new TargetEntryDTO(row.targetID(), row.targetName(), row.targetUrl(), dtoTags,
-                            Optional.empty());
-                    });
-            });
+            .map((row) -> toTargetEntryRow(row, fields))
+            .all();
+        return toEntries(rows, fields)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.findAllBy", result));
     }
 
     /**
@@ -116,40 +137,118 @@ public class TargetRepository {
      *
      * @param query Pattern by which look for entries.
      * @param page On which page to look for
+     * @param fields Which fields to fetch, tags are fetched only if requested.
      *
      * @return Flux containing targets with tags if they have any.
      */
-    public Flux<TargetEntryDTO> findAllBy(String query, Pageable page) {
-        String select = """
-            SELECT t.id,t.name,t.url
+    public Flux<TargetEntryDTO> findAllBy(String query, Pageable page, Set<TargetField> fields) {
+        String select = "SELECT t.id" + selectColumns(fields) + """
+
             FROM targets t
             WHERE t.name ILIKE :query OR t.url ILIKE :query2 OR EXISTS (
                 SELECT 1 FROM targets_tags tt
                 JOIN tags tg ON tg.id=tt.tag_id
                 WHERE tt.target_id=t.id AND tg.name ILIKE :query3
             )
-            ORDER BY t.name LIMIT :limit OFFSET :offset
+            ORDER BY t.name, t.id LIMIT :limit OFFSET :offset
             """;
         long offset = page.getPageSize() * page.getPageNumber();
         String queryPattern = "%" + query + "%";
-        return entityTemplate.getDatabaseClient()
+        Flux<TargetEntryRow> rows = entityTemplate.getDatabaseClient()
             .sql(select)
             .bind("query", queryPattern)
             .bind("query2", queryPattern)
             .bind("query3", queryPattern)
             .bind("limit", page.getPageSize())
             .bind("offset", offset)
-            .map(this::toTargetEntryRow)
-            .all()
-            .flatMap((row) -> {
-                return tagRepository.findAllByTargetID(row.targetID)
-                    .collectList()
-                    .map((tags) -> {
-                        var dtoTags = tagService.toDTOList(tags);
-                        return new TargetEntryDTO(row.targetID(), row.targetName(), row.targetUrl(), dtoTags,
-                            Optional.empty());
-                    });
-            });
+            .map((row) -> toTargetEntryRow(row, fields))
+            .all();
+        return toEntries(rows, fields)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.findAllBy", result));
+    }
+
+    /**
+     * Returns elements following the given one in default order, seeking by primary key instead of offset.
+     *
+     * @param lastID ID of the last element client received.
+     * @param limit Max count of elements to return.
+     * @param fields Which fields to fetch, tags are fetched only if requested.
+     *
+     * @return Flux containing targets with tags if they have any.
+     */
+    public Flux<TargetEntryDTO> findAllAfter(long lastID, int limit, Set<TargetField> fields) {
+        String select = "SELECT t.id" + selectColumns(fields) + """
+
+            FROM targets t
+            WHERE t.id > :lastID
+            ORDER BY t.id ASC
+            LIMIT :limit
+            """;
+        Flux<TargetEntryRow> rows = entityTemplate.getDatabaseClient()
+            .sql(select)
+            .bind("lastID", lastID)
+            .bind("limit", limit)
+            .map((row) -> toTargetEntryRow(row, fields))
+            .all();
+        return toEntries(rows, fields)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.findAllAfter", result));
+    }
+
+    /**
+     * Returns elements matching the query which follow the given one, seeking by name and ID instead of offset.
+     * Given element doesn't have to exist anymore.
+     *
+     * @param query Pattern by which look for entries.
+     * @param lastName Name of the last element client received.
+     * @param lastID ID of the last element client received.
+     * @param limit Max count of elements to return.
+     * @param fields Which fields to fetch, tags are fetched only if requested.
+     *
+     * @return Flux containing targets with tags if they have any.
+     */
+    public Flux<TargetEntryDTO> findAllAfter(String query, String lastName, long lastID, int limit,
+        Set<TargetField> fields) {
+        String select = "SELECT t.id" + selectColumns(fields) + """
+
+            FROM targets t
+            WHERE (t.name ILIKE :query OR t.url ILIKE :query2 OR EXISTS (
+                SELECT 1 FROM targets_tags tt
+                JOIN tags tg ON tg.id=tt.tag_id
+                WHERE tt.target_id=t.id AND tg.name ILIKE :query3
+            )) AND (t.name, t.id) > (:lastName, :lastID)
+            ORDER BY t.name, t.id LIMIT :limit
+            """;
+        String queryPattern = "%" + query + "%";
+        Flux<TargetEntryRow> rows = entityTemplate.getDatabaseClient()
+            .sql(select)
+            .bind("query", queryPattern)
+            .bind("query2", queryPattern)
+            .bind("query3", queryPattern)
+            .bind("lastName", lastName)
+            .bind("lastID", lastID)
+            .bind("limit", limit)
+            .map((row) -> toTargetEntryRow(row, fields))
+            .all();
+        return toEntries(rows, fields)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.findAllAfter", result));
+    }
+
+    /**
+     * Attaches tags to entries if requested, keeping order of entries.
+     */
+    private Flux<TargetEntryDTO> toEntries(Flux<TargetEntryRow> rows, Set<TargetField> fields) {
+        if (!fields.contains(TargetField.TAGS))
+            return rows.map((row) -> new TargetEntryDTO(row.targetID(), row.targetName(), row.targetUrl(), null,
+                Optional.empty()));
+        return rows.flatMapSequential((row) -> {
+            return tagRepository.findAllByTargetID(row.targetID())
+                .collectList()
+                .map((tags) -> {
+                    var dtoTags = tagService.toDTOList(tags);
+                    return new TargetEntryDTO(row.targetID(), row.targetName(), row.targetUrl(), dtoTags,
+                        Optional.empty());
+                });
+        });
     }
 
     /**
@@ -175,11 +274,42 @@ public class TargetRepository {
             .bind("query3", queryPattern)
             .map((t) -> t.get("count", Long.class))
             .one()
-            .defaultIfEmpty(0L);
+            .defaultIfEmpty(0L)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.countByQuery", result));
+    }
+
+    /**
+     * Fetches swagger of the given target as stored JSON text, in single round trip. Hash is computed by database on
+     * write. Document is not sent if its hash is one of known hashes.
+     *
+     * @param targetID Which target swagger to fetch.
+     * @param knownHashes Hashes of documents the caller already has.
+     *
+     * @return Mono with the document, empty if target doesn't exist.
+     */
+    public Mono<SwaggerDocumentDTO> findSwagger(Long targetID, List<String> knownHashes) {
+        String select = """
+            SELECT t.swagger_hash, CASE WHEN t.swagger_hash = ANY(:known) THEN NULL ELSE t.swagger END
+            FROM targets t
+            WHERE t.id = :id
+            """;
+        return entityTemplate.getDatabaseClient()
+            .sql(select)
+            .bind("id", targetID)
+            .bind("known", knownHashes.toArray(String[]::new))
+            .map((row) -> {
+                Json content = row.get(1, Json.class);
+                return new SwaggerDocumentDTO(row.get(0, String.class), (content != null) ? content.asArray() : null);
+            })
+            .one()
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.findSwagger", result));
     }
 
-    private record TargetRow(Long targetID, String targetName, String url, String description, JsonNode swaagger,
-        Map<String, String> headers, Map<String, String> cookies, UUID creatorID, UUID editorID, LocalDateTime created,
+    /**
+     * Swagger is kept raw and wrapped only for the first row, rest of rows repeat it for each tag.
+     */
+    private record TargetRow(Long targetID, String targetName, String url, String description, Json swagger,
+        Json headers, Json cookies, UUID creatorID, UUID editorID, LocalDateTime created,
         LocalDateTime edited, Long tagID, String tagName) implements TagRow {
     }
 
@@ -208,48 +338,71 @@ public class TargetRepository {
                     row.targetName(),
                     row.url(),
                     row.description(),
-                    row.swaagger(),
-                    row.headers(),
-                    row.cookies());
+                    JsonbToLazyJsonConverter.toLazyNode(row.swagger(), mapper),
+                    // Decrypted only if caller reads them
+                    JsonbToEncryptedMapConverter.toEncryptedMap(row.headers(), mapCodec),
+                    JsonbToEncryptedMapConverter.toEncryptedMap(row.cookies(), mapCodec));
                 target.setCreatorID(row.creatorID());
                 target.setEditorID(row.editorID());
                 target.setCreated(row.created());
                 target.setEdited(row.edited());
-                target.setSwagger(row.swaagger());
                 target.setTags(tags);
                 return target;
-            });
+            })
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "TargetRepository.findEntityByID",
+                result));
     }
 
-    private TargetEntryRow toTargetEntryRow(Row row, RowMetadata metadata) {
-        return new TargetEntryRow(row.get(0, Long.class),
-            row.get(1, String.class),
-            row.get(2, String.class));
+    private TargetEntryRow toTargetEntryRow(Row row, Set<TargetField> fields) {
+        return new TargetEntryRow(row.get("id", Long.class),
+            getIfRequested(row, fields, TargetField.NAME, String.class),
+            getIfRequested(row, fields, TargetField.URL, String.class));
     }
 
-    private TargetDetailRow toTargetDetailsRow(Row row, RowMetadata metadata) {
-        return new TargetDetailRow(row.get(0, Long.class),
-            row.get(1, String.class),
-            row.get(2, String.class),
-            row.get(3, String.class),
-            convertJsonToMap(row.get(4, Json.class)),
-            convertJsonToMap(row.get(5, Json.class)),
-            row.get(6, LocalDateTime.class),
-            row.get(7, LocalDateTime.class),
-            row.get(8, Long.class),
-            row.get(9, String.class));
+    private TargetDetailRow toTargetDetailsRow(Row row, Set<TargetField> fields) {
+        boolean withTags = fields.contains(TargetField.TAGS);
+        return new TargetDetailRow(getIfRequested(row, fields, TargetField.NAME, String.class),
+            getIfRequested(row, fields, TargetField.URL, String.class),
+            getIfRequested(row, fields, TargetField.DESCRIPTION, String.class),
+            getIfRequested(row, fields, TargetField.HEADERS, Json.class),
+            getIfRequested(row, fields, TargetField.COOKIES, Json.class),
+            getIfRequested(row, fields, TargetField.CREATED, LocalDateTime.class),
+            getIfRequested(row, fields, TargetField.EDITED, LocalDateTime.class),
+            (withTags) ? row.get("tag_id", Long.class) : null,
+            (withTags) ? row.get("tag_name", String.class) : null);
+    }
+
+    /**
+     * @return Columns of requested fields, each preceded by comma.
+     */
+    private String selectColumns(Set<TargetField> fields) {
+        StringBuilder columns = new StringBuilder();
+        for (TargetField field : fields)
+            if (field.getColumn() != null)
+                columns.append(",t.")
+                    .append(field.getColumn());
+        return columns.toString();
+    }
+
+    private <T> T getIfRequested(Row row, Set<TargetField> fields, TargetField field, Class<T> type) {
+        return (fields.contains(field)) ? row.get(field.getColumn(), type) : null;
+    }
+
+    /**
+     * @return Optional of the value if field was requested, {@code null} otherwise.
+     */
+    private <T> Optional<T> optionalIfRequested(Set<TargetField> fields, TargetField field, T value) {
+        return (fields.contains(field)) ? Optional.ofNullable(value) : null;
     }
 
     private TargetRow toTargetRow(Row row, RowMetadata metadata) {
-        Json swaggerJson = row.get(4, Json.class);
-        JsonNode swagger = (swaggerJson) != null ? mapper.readTree(swaggerJson.asArray()) : null;
         return new TargetRow(row.get(0, Long.class),
             row.get(1, String.class),
             row.get(2, String.class),
             row.get(3, String.class),
-            swagger,
-            convertJsonToMap(row.get(5, Json.class)),
-            convertJsonToMap(row.get(6, Json.class)),
+            row.get(4, Json.class),
+            row.get(5, Json.class),
+            row.get(6, Json.class),
             convertStringToUUID(row.get(7, String.class)),
             convertStringToUUID(row.get(8, String.class)),
             row.get(9, LocalDateTime.class),
@@ -259,7 +412,7 @@ public class TargetRepository {
     }
 
     private Map<String, String> convertJsonToMap(Json jsonMap) {
-        return (jsonMap != null) ? mapper.readValue(jsonMap.asArray(), Map.class) : null;
+        return (jsonMap != null) ? mapCodec.read(jsonMap) : null;
     }
 
     private UUID convertStringToUUID(String id) {
@@ -2,6 +2,8 @@ package artifixal.agrest.repository;
 
 import artifixal.agrest.entity.User;
 import java.util.UUID;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
@@ -13,4 +15,17 @@ import reactor.core.publisher.Mono;
 public interface UserRepository extends R2dbcRepository<User, UUID> {
 
     Mono<User> findByEmail(String email);
+
+    /**
+     * Replaces password hash of given user, unless it was changed since it was read.
+     *
+     * @param id User ID.
+     * @param oldHash Hash which is being replaced.
+     * @param hash New hash.
+     *
+     * @return Mono emiting count of updated rows, 0 if hash was changed meanwhile.
+     */
+    @Modifying
+    @Query("UPDATE users SET hash = :hash WHERE id = :id AND hash = :oldHash")
+    Mono<Integer> updateHash(UUID id, byte[] oldHash, byte[] hash);
 }
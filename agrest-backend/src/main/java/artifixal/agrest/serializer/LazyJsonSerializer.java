@@ -0,0 +1,129 @@
+package artifixal.agrest.serializer;
+
+import artifixal.agrest.entity.LazyJson;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.StreamWriteCapability;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+
+/**
+ * Serializes {@code LazyJson}. JSON value which wasn't parsed is written raw, skipping parse and serialization of the
+ * tree. Byte based generators copy raw bytes straight to output, only character based ones decode them to string.
+ * Binary formats can't embed raw JSON, so there value is parsed first.
+ */
+public class LazyJsonSerializer extends ValueSerializer<LazyJson<?>> {
+
+    @Override
+    public void serialize(LazyJson<?> value, JsonGenerator gen, SerializationContext ctxt) throws JacksonException {
+        if (value.isParsed() || gen.has(StreamWriteCapability.CAN_WRITE_BINARY_NATIVELY))
+            ctxt.writeValue(gen, value.get());
+        else
+            gen.writeRawValue(new RawUtf8(value.raw()));
+    }
+
+    /**
+     * UTF-8 JSON written as is. Raw value is never quoted, so quoting methods aren't supported.
+     */
+    private static class RawUtf8 implements SerializableString {
+
+        private final byte[] raw;
+        private String value;
+
+        public RawUtf8(byte[] raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        public String getValue() {
+            if (value == null)
+                value = new String(raw, StandardCharsets.UTF_8);
+            return value;
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return raw;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (raw.length > buffer.length - offset)
+                return -1;
+            System.arraycopy(raw, 0, buffer, offset, raw.length);
+            return raw.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String text = getValue();
+            if (text.length() > buffer.length - offset)
+                return -1;
+            text.getChars(0, text.length(), buffer, offset);
+            return text.length();
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) {
+            try {
+                out.write(raw);
+                return raw.length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (raw.length > buffer.remaining())
+                return -1;
+            buffer.put(raw);
+            return raw.length;
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            throw quotingNotSupported();
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            throw quotingNotSupported();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            throw quotingNotSupported();
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            throw quotingNotSupported();
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) {
+            throw quotingNotSupported();
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            throw quotingNotSupported();
+        }
+
+        private UnsupportedOperationException quotingNotSupported() {
+            return new UnsupportedOperationException("Raw JSON can't be quoted");
+        }
+    }
+}
@@ -1,27 +1,32 @@
 package artifixal.agrest.services;
 
-import artifixal.agrest.dto.vault.SecureSecret;
 import artifixal.agrest.exceptions.CsrfTokenException;
+import artifixal.agrest.metrics.ReactiveMetrics;
+import artifixal.agrest.services.csrf.CsrfMode;
+import artifixal.agrest.services.csrf.CsrfTokenStore;
+import artifixal.agrest.services.csrf.HmacEngine;
+import artifixal.agrest.services.csrf.SeenTokenFilter;
+import jakarta.annotation.PostConstruct;
 import java.security.MessageDigest;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.DependsOn;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.http.ResponseCookie;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.crypto.codec.Hex;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
- * Service related to generating and validating anti CSRF tokens.
+ * Service related to generating and validating anti CSRF tokens. In {@code STORED} mode tokens are single use entries
+ * in {@code CsrfTokenStore}. In {@code STATELESS} mode token carries its issue time under HMAC and replays are
+ * detected by node local filter, so no network I/O is needed, but token replayed to other node within TTL is accepted.
  */
 @Service
-@DependsOn("vaultInitRunner")
 @RequiredArgsConstructor
 public class CsrfService {
     /**
@@ -34,59 +39,110 @@ public class CsrfService {
      */
     public final static String CSRF_COOKIE = "csrf";
 
+    /**
+     * Max count of tokens issued at once.
+     */
+    public final static int MAX_BATCH_SIZE = 50;
+
     /**
      * Time after CSRF token is invalid.
      */
     @Value("${app.csrf.ttl}")
     private int CSRF_TOKEN_TTL;
+
+    @Value("${app.csrf.mode}")
+    private CsrfMode mode;
+
+    /**
+     * Allowed difference between node clocks in seconds.
+     */
+    private final static long CLOCK_SKEW = 5;
+
+    /**
+     * Count of buckets TTL of seen stateless tokens is split into.
+     */
+    private final static int SEEN_TOKEN_BUCKETS = 6;
+
     private final VaultService vaultService;
-    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final CsrfTokenStore tokenStore;
+    private final HmacEngine hmacEngine;
+    private final ReactiveMetrics metrics;
+    private final Clock clock = Clock.systemUTC();
+    private SeenTokenFilter seenTokens;
 
-    private Mac createMacFunction(SecureSecret key) {
-        try {
-            Mac hmacSha256 = Mac.getInstance("HmacSHA256");
-            SecretKeySpec keySpec = new SecretKeySpec(key.value(), "HmacSHA256");
-            hmacSha256.init(keySpec);
-            return hmacSha256;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create Mac Function");
-        }
+    @PostConstruct
+    private void initSeenTokens() {
+        seenTokens = new SeenTokenFilter(getTokenTTL(), SEEN_TOKEN_BUCKETS);
     }
 
     private Mono<byte[]> calcHmac(String token, String userID) {
         return vaultService.getCsrfKey()
-            .map((key) -> createMacFunction(key.getData().key()))
-            .map((hmacFunction) -> {
-                // Bind userID to crypto
-                hmacFunction.update(userID.getBytes());
-                return hmacFunction.doFinal(token.getBytes());
-            });
+            // Bind userID to crypto
+            .map((key) -> hmacEngine.calc(key.getVersion().getVersion(), key.getData().key().value(),
+                userID.getBytes(), token.getBytes()));
     }
 
     /**
-     * Generates per-request user binded token and saves it in Redis with TTL for later usage validation.
+     * Generates per-request user binded token. In {@code STORED} mode it's saved with TTL for later usage
+     * validation.
      *
      * @return Random CSRF token.
      * @see #CSRF_TOKEN_TTL
      */
     public Mono<String> generateToken() {
         return ReactiveSecurityContextHolder.getContext()
-            .flatMap((auth) -> {
-                UUID nonce = UUID.randomUUID();
-                String userID = auth.getAuthentication()
-                    .getPrincipal()
-                    .toString();
-                String token = nonce.toString();
-                return calcHmac(token, userID).map((hmac) -> {
-                    return token + "." + String.valueOf(Hex.encode(hmac));
-                });
-            })
-            .flatMap((token) -> {
-                String key = "csrf:" + token;
-                return redisTemplate.opsForValue()
-                    .set(key, "valid", getTokenTTL())
-                    .thenReturn(token);
-            });
+            .map((auth) -> auth.getAuthentication()
+                .getPrincipal()
+                .toString())
+            .flatMap((userID) -> (mode == CsrfMode.STATELESS)
+                ? generateStatelessToken(userID)
+                : generateStoredToken(userID))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "CsrfService.generateToken", result));
+    }
+
+    /**
+     * Generates batch of per-request user binded tokens. In {@code STORED} mode they are saved with single store
+     * call.
+     *
+     * @param count How many tokens to generate.
+     *
+     * @return Random CSRF tokens.
+     */
+    public Mono<List<String>> generateTokens(int count) {
+        return ReactiveSecurityContextHolder.getContext()
+            .map((auth) -> auth.getAuthentication()
+                .getPrincipal()
+                .toString())
+            .flatMap((userID) -> Flux.range(0, count)
+                .concatMap((i) -> (mode == CsrfMode.STATELESS)
+                    ? generateStatelessToken(userID)
+                    : signToken(UUID.randomUUID().toString(), userID))
+                .collectList())
+            .flatMap((tokens) -> (mode == CsrfMode.STATELESS)
+                ? Mono.just(tokens)
+                : tokenStore.store(tokens, getTokenTTL())
+                    .thenReturn(tokens))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "CsrfService.generateTokens", result));
+    }
+
+    private Mono<String> generateStoredToken(String userID) {
+        String nonce = UUID.randomUUID().toString();
+        return signToken(nonce, userID)
+            .flatMap((token) -> tokenStore.store(List.of(token), getTokenTTL())
+                .thenReturn(token));
+    }
+
+    /**
+     * Token format: nonce.issuedAt.hmac, where issuedAt is in epoch seconds.
+     */
+    private Mono<String> generateStatelessToken(String userID) {
+        String body = UUID.randomUUID() + "." + clock.instant().getEpochSecond();
+        return signToken(body, userID);
+    }
+
+    private Mono<String> signToken(String body, String userID) {
+        return calcHmac(body, userID)
+            .map((hmac) -> body + "." + String.valueOf(Hex.encode(hmac)));
     }
 
     /**
@@ -95,24 +151,55 @@ public class CsrfService {
     public Mono<Boolean> validateToken(String token) {
         if (token == null || token.isBlank())
             return Mono.error(new CsrfTokenException("Missing CSRF token"));
-        String[] tokenParts = token.split("\\.");
-        if (tokenParts.length != 2)
+        int hmacSeparator = token.lastIndexOf('.');
+        if (hmacSeparator <= 0)
+            return Mono.error(new CsrfTokenException("Malformed CSRF token"));
+        String body = token.substring(0, hmacSeparator);
+        byte[] receivedHmac;
+        try {
+            receivedHmac = Hex.decode(token.substring(hmacSeparator + 1));
+        } catch (IllegalArgumentException e) {
             return Mono.error(new CsrfTokenException("Malformed CSRF token"));
+        }
         return ReactiveSecurityContextHolder.getContext()
             .map((auth) -> auth.getAuthentication().getPrincipal().toString())
-            .flatMap((userID) -> {
-                byte[] receivedHmac = Hex.decode(tokenParts[1]);
-                return calcHmac(tokenParts[0], userID)
-                    .flatMap((calculatedHmac) -> {
-                        if (!MessageDigest.isEqual(receivedHmac, calculatedHmac))
-                            return Mono.error(new CsrfTokenException("Invalid CSRF token"));
-                        String key = "csrf:" + token;
-                        return redisTemplate.opsForValue()
-                            .getAndDelete(key)
-                            .switchIfEmpty(Mono.error(new CsrfTokenException("CSRF token already used")))
-                            .map((fetchedToken) -> fetchedToken.equals("valid"));
-                    });
-            });
+            .flatMap((userID) -> calcHmac(body, userID))
+            .flatMap((calculatedHmac) -> {
+                if (!MessageDigest.isEqual(receivedHmac, calculatedHmac))
+                    return Mono.error(new CsrfTokenException("Invalid CSRF token"));
+                return (mode == CsrfMode.STATELESS)
+                    ? validateStatelessToken(body)
+                    : consumeStoredToken(token);
+            })
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "CsrfService.validateToken", result));
+    }
+
+    private Mono<Boolean> consumeStoredToken(String token) {
+        return tokenStore.consume(token)
+            .flatMap((consumed) -> consumed
+                ? Mono.just(true)
+                : Mono.error(new CsrfTokenException("CSRF token already used")));
+    }
+
+    /**
+     * Checks expiry and replay of token with already verified HMAC.
+     */
+    private Mono<Boolean> validateStatelessToken(String body) {
+        String[] bodyParts = body.split("\\.");
+        if (bodyParts.length != 2)
+            return Mono.error(new CsrfTokenException("Malformed CSRF token"));
+        long issuedAt;
+        try {
+            issuedAt = Long.parseLong(bodyParts[1]);
+        } catch (NumberFormatException e) {
+            return Mono.error(new CsrfTokenException("Malformed CSRF token"));
+        }
+        long now = clock.instant().getEpochSecond();
+        if (issuedAt > now + CLOCK_SKEW || now - issuedAt > CSRF_TOKEN_TTL)
+            return Mono.error(new CsrfTokenException("CSRF token expired"));
+        if (!seenTokens.markSeen(bodyParts[0], issuedAt, now))
+            return Mono.error(new CsrfTokenException("CSRF token already used"));
+        return Mono.just(true);
     }
 
     public ResponseCookie createCsrfCookie(String token) {
@@ -125,6 +212,23 @@ public class CsrfService {
             .build();
     }
 
+    /**
+     * @return Cookie removing CSRF token from client.
+     */
+    public ResponseCookie createExpiredCsrfCookie() {
+        return ResponseCookie.from(CSRF_COOKIE, "")
+            .httpOnly(false)
+            .secure(true)
+            .sameSite("Strict")
+            .maxAge(0)
+            .path("/")
+            .build();
+    }
+
+    public int getTokenTTLSeconds() {
+        return CSRF_TOKEN_TTL;
+    }
+
     public Duration getTokenTTL() {
         return Duration.ofSeconds(CSRF_TOKEN_TTL);
     }
@@ -3,6 +3,7 @@ package artifixal.agrest.services;
 import artifixal.agrest.config.PaginationProperties;
 import artifixal.agrest.exceptions.page.PaginationException;
 import artifixal.agrest.exceptions.page.UnavailablePageSizeException;
+import artifixal.agrest.metrics.ReactiveMetrics;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
@@ -38,8 +39,11 @@ public class PageService {
 
     private static List<Integer> availablePageSizes;
 
-    public PageService(PaginationProperties paginationProperties) {
+    private final ReactiveMetrics metrics;
+
+    public PageService(PaginationProperties paginationProperties, ReactiveMetrics metrics) {
         availablePageSizes = paginationProperties.getSizes();
+        this.metrics = metrics;
     }
 
     /**
@@ -57,13 +61,26 @@ public class PageService {
      *
      * @return Mono emiting headers with pagination data.
      */
-    public Mono<HttpHeaders> createPaginationHeaders(Pageable page, R2dbcRepository repo) {
+    public Mono<HttpHeaders> createPaginationHeaders(Pageable page, R2dbcRepository<?, ?> repo) {
+        checkPage(page);
+        return repo.count()
+            .map((total) -> createPaginationHeadersFromCount(page, total))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "PageService.createPaginationHeaders",
+                result));
+    }
+
+    /**
+     * Checks if the given page can be requested.
+     *
+     * @param page Requested page.
+     *
+     * @throws PaginationException If page size is unavailable or page number is negative.
+     */
+    public void checkPage(Pageable page) {
         if (!availablePageSizes.contains(page.getPageSize()))
             throw new UnavailablePageSizeException(page.getPageSize(), availablePageSizes);
         if (page.getPageNumber() < 0)
             throw new PaginationException("Page number can't be negative");
-        return repo.count()
-            .map((total) -> createPaginationHeadersFromCount(page, (Long) total));
     }
 
     /**
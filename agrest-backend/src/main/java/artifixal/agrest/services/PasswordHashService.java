@@ -0,0 +1,304 @@
+package artifixal.agrest.services;
+
+import artifixal.agrest.config.HashCalibrationProperties;
+import artifixal.agrest.config.HashPoolProperties;
+import artifixal.agrest.dto.user.SecurePassword;
+import artifixal.agrest.exceptions.HashingOverloadedException;
+import com.password4j.Argon2Function;
+import com.password4j.Password;
+import com.password4j.types.Argon2;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Service running Argon2 hashing and verification on a dedicated bounded executor, so that memory and CPU heavy
+ * password operations never run on event loop threads. Argon2 cost is calibrated at startup to configured latency
+ * target, with values from {@code psw4j.properties} being the minimum.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PasswordHashService {
+
+    /**
+     * Argon2 memory cost in KiB.
+     */
+    @Value("${hash.argon2.memory}")
+    private int argon2Memory;
+
+    @Value("${hash.argon2.iterations}")
+    private int argon2Iterations;
+
+    @Value("${hash.argon2.parallelism}")
+    private int argon2Parallelism;
+
+    @Value("${hash.argon2.length}")
+    private int argon2Length;
+
+    @Value("${hash.argon2.type}")
+    private String argon2Type;
+
+    private final HashPoolProperties poolProperties;
+    private final HashCalibrationProperties calibrationProperties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Function with calibrated parameters used for new hashes.
+     */
+    private Argon2Function argon2Function;
+    private ThreadPoolExecutor executor;
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Timer queueWaitTimer;
+    private Counter queueFullCounter;
+    private Counter deadlineCounter;
+
+    /**
+     * Calibrates Argon2 and starts hashing pool. Has to complete before any hashing.
+     *
+     * @return Mono completing when pool is ready.
+     */
+    public Mono<Void> start() {
+        // Calibration hashes block for a while
+        return Mono.fromRunnable(this::initPool)
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    private void initPool() {
+        argon2Function = calibrate();
+        int threads = calcPoolSize();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(poolProperties.getQueueSize()),
+            Thread.ofPlatform()
+                .name("argon2-", 0)
+                .daemon(true)
+                .factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("agrest.hash.queue.depth", executor, (pool) -> pool.getQueue().size())
+            .description("Password hash requests waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("agrest.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hash requests being computed")
+            .register(meterRegistry);
+        hashTimer = createHashTimer("hash");
+        verifyTimer = createHashTimer("verify");
+        queueWaitTimer = Timer.builder("agrest.hash.queue.wait")
+            .description("Time spent by password hash requests in queue")
+            .register(meterRegistry);
+        queueFullCounter = createRejectionCounter("queue_full");
+        deadlineCounter = createRejectionCounter("deadline");
+        log.info("Password hashing pool started with {} workers and queue of {}", threads,
+            poolProperties.getQueueSize());
+    }
+
+    @PreDestroy
+    private void shutdownPool() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Hashes password with random salt. Password is cleared afterwards.
+     *
+     * @param password What to hash.
+     * @param pepper Secret added to password.
+     *
+     * @return Mono emiting hash.
+     */
+    public Mono<byte[]> hash(SecurePassword password, CharSequence pepper) {
+        return submit(hashTimer, () -> {
+            try (password) {
+                return password.apply((value) -> Password.hash(value)
+                    .addPepper(pepper)
+                    .addRandomSalt()
+                    .with(argon2Function)
+                    .getResultAsBytes());
+            }
+        });
+    }
+
+    /**
+     * Checks password against stored hash.
+     *
+     * @param password What to check.
+     * @param hash Stored hash.
+     * @param pepper Secret added to password.
+     *
+     * @return Mono emiting if password matches.
+     */
+    public Mono<Boolean> verify(SecurePassword password, byte[] hash, CharSequence pepper) {
+        return submit(verifyTimer, () -> password.apply((value) -> Password.check(value, hash)
+            .addPepper(pepper)
+            .withArgon2()));
+    }
+
+    /**
+     * Checks if stored hash was computed with weaker parameters than current ones. Parameters are read from the hash
+     * itself.
+     *
+     * @param hash Stored hash.
+     *
+     * @return Should password be hashed again?
+     */
+    public boolean needsRehash(byte[] hash) {
+        Argon2Function stored = Argon2Function.getInstanceFromHash(new String(hash, StandardCharsets.UTF_8));
+        return stored.getMemory() < argon2Function.getMemory()
+            || stored.getIterations() < argon2Function.getIterations()
+            || stored.getOutputLength() != argon2Function.getOutputLength()
+            || stored.getVariant() != argon2Function.getVariant();
+    }
+
+    /**
+     * Finds parameters with which single hash takes about target time. Memory is raised first as it makes attacks
+     * costlier than iterations do, then iterations are scaled up to fill remaining time.
+     */
+    private Argon2Function calibrate() {
+        if (!calibrationProperties.isEnabled())
+            return createFunction(argon2Memory, argon2Iterations);
+        long targetNanos = calibrationProperties.getTarget().toNanos();
+        int memory = argon2Memory;
+        int iterations = argon2Iterations;
+        long elapsed = measure(createFunction(memory, iterations));
+        while (elapsed * 2 <= targetNanos && memory * 2L <= calibrationProperties.getMaxMemory()) {
+            memory *= 2;
+            elapsed = measure(createFunction(memory, iterations));
+        }
+        // Hash time grows about linearly with iterations
+        if (elapsed < targetNanos) {
+            long scaled = iterations * targetNanos / Math.max(1, elapsed);
+            iterations = (int) Math.max(iterations, Math.min(scaled, calibrationProperties.getMaxIterations()));
+        } else if (memory == argon2Memory)
+            log.warn("Minimal Argon2 parameters take {} ms, above target of {} ms", elapsed / 1_000_000,
+                calibrationProperties.getTarget().toMillis());
+        log.info("Argon2 calibrated to m={} KiB, t={}, p={}", memory, iterations, argon2Parallelism);
+        return createFunction(memory, iterations);
+    }
+
+    /**
+     * @return Average time of single hash in nanoseconds.
+     */
+    private long measure(Argon2Function function) {
+        final byte[] password = new byte[16];
+        new SecureRandom().nextBytes(password);
+        // Warm up
+        Password.hash(password).addRandomSalt().with(function);
+        long start = System.nanoTime();
+        for (int i = 0; i < calibrationProperties.getSamples(); i++)
+            Password.hash(password).addRandomSalt().with(function);
+        return (System.nanoTime() - start) / Math.max(1, calibrationProperties.getSamples());
+    }
+
+    private Argon2Function createFunction(int memory, int iterations) {
+        return Argon2Function.getInstance(memory, iterations, argon2Parallelism, argon2Length,
+            Argon2.valueOf(argon2Type.toUpperCase(Locale.ROOT)));
+    }
+
+    /**
+     * Queues task on hashing executor. Task which doesn't reach worker before deadline is removed from queue and its
+     * caller fails right away, as does task for which there is no space in queue. Task which already started is
+     * awaited regardless of deadline.
+     */
+    <T> Mono<T> submit(Timer timer, Callable<T> task) {
+        return Mono.defer(() -> {
+            final CompletableFuture<T> result = new CompletableFuture<>();
+            // Claimed by whichever comes first: worker, deadline or cancellation
+            final AtomicBoolean claimed = new AtomicBoolean();
+            final long queuedAt = System.nanoTime();
+            final Runnable job = () -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                if (!claimed.compareAndSet(false, true))
+                    return;
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    result.complete(task.call());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    sample.stop(timer);
+                }
+            };
+            try {
+                executor.execute(job);
+            } catch (RejectedExecutionException e) {
+                queueFullCounter.increment();
+                return Mono.error(new HashingOverloadedException("Password hashing queue is full"));
+            }
+            return Mono.fromFuture(result, true)
+                .timeout(poolProperties.getQueueDeadline(), Mono.defer(() -> {
+                    if (!claimed.compareAndSet(false, true))
+                        return Mono.fromFuture(result, true);
+                    executor.remove(job);
+                    deadlineCounter.increment();
+                    return Mono.error(new HashingOverloadedException("Password hashing queue deadline exceeded"));
+                }))
+                .doOnCancel(() -> {
+                    if (claimed.compareAndSet(false, true))
+                        executor.remove(job);
+                });
+        });
+    }
+
+    /**
+     * Limits concurrent hashes so their memory fits in configured heap fraction and they don't oversubscribe
+     * cores.
+     */
+    private int calcPoolSize() {
+        if (poolProperties.getThreads() > 0)
+            return poolProperties.getThreads();
+        Runtime runtime = Runtime.getRuntime();
+        return calcPoolSize(runtime.maxMemory(), runtime.availableProcessors(), poolProperties.getMemoryFraction(),
+            argon2Function.getMemory(), argon2Parallelism);
+    }
+
+    /**
+     * @param maxMemory Max heap in bytes.
+     * @param cores Available cores.
+     * @param memoryFraction Fraction of heap hashes may use.
+     * @param argon2Memory Memory of single hash in KiB.
+     * @param parallelism Threads used by single hash.
+     *
+     * @return Worker count fitting both memory and CPU budget, at least one.
+     */
+    static int calcPoolSize(long maxMemory, int cores, double memoryFraction, int argon2Memory, int parallelism) {
+        long memoryPerHash = (long) argon2Memory * 1024;
+        long memoryBudget = (long) (maxMemory * memoryFraction);
+        int byMemory = (int) Math.max(1, memoryBudget / memoryPerHash);
+        int byCpu = Math.max(1, cores / parallelism);
+        return Math.min(byMemory, byCpu);
+    }
+
+    private Timer createHashTimer(String operation) {
+        return Timer.builder("agrest.hash.duration")
+            .description("Time spent computing Argon2")
+            .tag("operation", operation)
+            .register(meterRegistry);
+    }
+
+    private Counter createRejectionCounter(String reason) {
+        return Counter.builder("agrest.hash.rejected")
+            .description("Password hash requests rejected due to overload")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
@@ -4,6 +4,7 @@ import artifixal.agrest.dto.TagDTO;
 import artifixal.agrest.entity.Tag;
 import artifixal.agrest.entity.TargetTag;
 import artifixal.agrest.entity.TargetTagKey;
+import artifixal.agrest.metrics.ReactiveMetrics;
 import artifixal.agrest.repository.TagRepository;
 import artifixal.agrest.repository.TargetTagRepository;
 import java.util.Collection;
@@ -27,6 +28,7 @@ public class TagService {
 
     private final TagRepository tagRepository;
     private final TargetTagRepository targetTagRepository;
+    private final ReactiveMetrics metrics;
 
     /**
      * Connects tags with given target.
@@ -41,7 +43,8 @@ public class TagService {
         return addOrGet(tags)
             .map((tag) -> new TargetTag(new TargetTagKey(targetID, tag.getId())))
             .collectList()
-            .flatMapMany((tagList) -> targetTagRepository.saveAll(tagList));
+            .flatMapMany((tagList) -> targetTagRepository.saveAll(tagList))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TagService.addTagsToTarget", result));
     }
 
     /**
@@ -68,7 +71,8 @@ public class TagService {
             .collect(Collectors.toSet());
         return Flux.fromIterable(deletedTags)
             .flatMap((targetTag) -> targetTagRepository.deleteById(targetTag))
-            .thenMany(addTagsToTarget(targetID, newTags));
+            .thenMany(addTagsToTarget(targetID, newTags))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TagService.editTargetTags", result));
     }
 
     /**
@@ -86,7 +90,7 @@ public class TagService {
             .collectMap(Tag::getName)
             .flatMapMany((existingTags) -> {
                 // Collect all new tags
-                Flux newTagFlux = Flux.fromIterable(tags)
+                Flux<Tag> newTagFlux = Flux.fromIterable(tags)
                     .filter((tag) -> !existingTags.containsKey(tag))
                     .map((newTag) -> new Tag(newTag))
                     .collectList()
@@ -98,7 +102,8 @@ public class TagService {
                     });
                 // Concat existing and new tags
                 return Flux.concat(Flux.fromIterable(existingTags.values()), newTagFlux);
-            });
+            })
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TagService.addOrGetAll", result));
     }
 
     /**
@@ -111,7 +116,8 @@ public class TagService {
     public Mono<Tag> addOrGet(String tagName) {
         String tagNameNormalized = tagName.toLowerCase();
         return tagRepository.findByName(tagNameNormalized)
-            .switchIfEmpty(addNewTag(tagNameNormalized));
+            .switchIfEmpty(addNewTag(tagNameNormalized))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TagService.addOrGet", result));
     }
 
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
@@ -122,12 +128,14 @@ public class TagService {
 
     public Flux<TagDTO> getTagPage(Pageable page) {
         return tagRepository.findByOrderByName(page)
-            .map((tag) -> new TagDTO(Optional.of(tag.getId()), tag.getName()));
+            .map((tag) -> new TagDTO(Optional.of(tag.getId()), tag.getName()))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TagService.getTagPage", result));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     public Mono<Long> deleteOrphanedTags() {
-        return tagRepository.deleteAllOrphaned();
+        return tagRepository.deleteAllOrphaned()
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TagService.deleteOrphanedTags", result));
     }
 
     public List<Tag> toEntityList(Collection<TagDTO> tags) {
@@ -2,12 +2,17 @@ package artifixal.agrest.services;
 
 import artifixal.agrest.dto.TargetEntryDTO;
 import artifixal.agrest.dto.target.TargetDTO;
+import artifixal.agrest.dto.target.SwaggerDocumentDTO;
 import artifixal.agrest.dto.target.TargetDetailsDTO;
+import artifixal.agrest.dto.target.TargetField;
+import artifixal.agrest.entity.EncryptedMap;
+import artifixal.agrest.entity.LazyJson;
 import artifixal.agrest.entity.Tag;
 import artifixal.agrest.entity.Target;
 import artifixal.agrest.exceptions.EntityNotFoundException;
 import artifixal.agrest.exceptions.JsonPatchException;
 import artifixal.agrest.exceptions.SwaggerParseException;
+import artifixal.agrest.metrics.ReactiveMetrics;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.swagger.parser.OpenAPIParser;
 import io.swagger.parser.SwaggerException;
@@ -15,6 +20,7 @@ import io.swagger.util.Json;
 import io.swagger.v3.parser.core.models.SwaggerParseResult;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.buffer.DataBufferUtils;
@@ -30,6 +36,7 @@ import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.json.JsonMapper;
 import artifixal.agrest.repository.TargetBasicRepository;
 import artifixal.agrest.repository.TargetRepository;
+import artifixal.agrest.stream.StreamPosition;
 import jakarta.validation.Validator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -50,6 +57,7 @@ public class TargetService {
     private final TagService tagService;
     private final JsonMapper mapper;
     private final Validator validator;
+    private final ReactiveMetrics metrics;
 
     private Mono<String> readOpenApiFile(FilePart openApiSpec) {
         return DataBufferUtils.join(openApiSpec.content())
@@ -61,7 +69,10 @@ public class TargetService {
             });
     }
 
-    private Mono<Optional<JsonNode>> handleSwaggerFile(Optional<FilePart> openApiSpec) {
+    /**
+     * Validates swagger file and converts it to JSON. Resulting JSON isn't parsed, it is stored as is.
+     */
+    private Mono<Optional<LazyJson<JsonNode>>> handleSwaggerFile(Optional<FilePart> openApiSpec) {
         if (openApiSpec.isEmpty()) {
             log.debug("No swagger file");
             return Mono.just(Optional.empty());
@@ -76,10 +87,9 @@ public class TargetService {
             .map((openApi) -> {
                 try {
                     // Jackson 2 internal swagger util mapper
-                    String json = Json.mapper().writeValueAsString(openApi);
-                    // Jackson 3 node
-                    JsonNode node = mapper.readTree(json);
-                    return Optional.of(node);
+                    byte[] json = Json.mapper().writeValueAsBytes(openApi);
+                    // Jackson 3 node, only if someone asks for it
+                    return Optional.of(LazyJson.of(json, (bytes) -> mapper.readTree(bytes)));
                 } catch (JsonProcessingException e) {
                     throw new SwaggerException("Failed to convert swagger into JSON");
                 }
@@ -95,15 +105,16 @@ public class TargetService {
                 targetData.url(),
                 targetData.description().orElse(""),
                 swaggerFile.orElse(null),
-                targetData.headers().orElse(Map.of()),
-                targetData.cookies().orElse(Map.of())))
+                EncryptedMap.of(targetData.headers().orElse(Map.of())),
+                EncryptedMap.of(targetData.cookies().orElse(Map.of()))))
             .flatMap((toAdd) -> targetBasicRepository.save(toAdd))
             .flatMap((target) -> {
                 if (targetData.tags().isPresent())
                     return tagService.addTagsToTarget(target.getId(), targetData.tags().get())
                         .then(Mono.just(target.getId()));
                 return Mono.just(target.getId());
-            });
+            })
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TargetService.addTarget", result));
     }
 
     /**
@@ -140,17 +151,44 @@ public class TargetService {
                     })
                     .flatMap((patchedTarget) -> targetBasicRepository.save(patchedTarget))
                     .then();
-            }));
+            }))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TargetService.editTarget", result));
     }
 
     public Mono<Target> getTargetEntity(Long targetID) {
         return targetRepository.findEntityByID(targetID)
-            .switchIfEmpty(Mono.error(new EntityNotFoundException("Target", targetID)));
+            .switchIfEmpty(Mono.error(new EntityNotFoundException("Target", targetID)))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TargetService.getTargetEntity", result));
     }
 
-    public Mono<TargetDetailsDTO> getTargetDTO(Long targetID) {
-        return targetRepository.findByID(targetID)
-            .switchIfEmpty(Mono.error(new EntityNotFoundException("Target", targetID)));
+    /**
+     * Fetches details of the given target.
+     *
+     * @param targetID Which target to fetch.
+     * @param fields Which fields to fetch.
+     *
+     * @return Mono emiting target details with requested fields.
+     */
+    public Mono<TargetDetailsDTO> getTargetDTO(Long targetID, Set<TargetField> fields) {
+        return targetRepository.findByID(targetID, fields)
+            .switchIfEmpty(Mono.error(new EntityNotFoundException("Target", targetID)))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TargetService.getTargetDTO", result));
+    }
+
+    /**
+     * Fetches stored swagger of the given target without parsing it.
+     *
+     * @param targetID Which target swagger to fetch.
+     * @param knownHashes Hashes of documents the caller already has, matching document is not fetched.
+     *
+     * @return Mono emiting the document.
+     */
+    public Mono<SwaggerDocumentDTO> getSwagger(Long targetID, List<String> knownHashes) {
+        return targetRepository.findSwagger(targetID, knownHashes)
+            .switchIfEmpty(Mono.error(new EntityNotFoundException("Target", targetID)))
+            .filter((document) -> document.hash() != null)
+            .switchIfEmpty(Mono.error(new EntityNotFoundException("Swagger of target", targetID)))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TargetService.getSwagger", result));
     }
 
     /**
@@ -162,7 +200,8 @@ public class TargetService {
      */
     public Mono<TargetDTO> getUpdateTargetDTO(Long targetID) {
         return getTargetEntity(targetID)
-            .map((target) -> toDto(target));
+            .map((target) -> toDto(target))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "TargetService.getUpdateTargetDTO", result));
     }
 
     /**
@@ -174,17 +213,43 @@ public class TargetService {
      *
      * @param query Optional search term to fetch items containing it.
      * @param page Which page to fetch.
+     * @param fields Which fields of entries to fetch.
      *
      * @return Zipped Mono with pagination headers and Flux to subscribe.
      */
-    public Mono<Tuple2<HttpHeaders, Flux<TargetEntryDTO>>> getTargetPage(Optional<String> query, Pageable page) {
+    public Mono<Tuple2<HttpHeaders, Flux<TargetEntryDTO>>> getTargetPage(Optional<String> query, Pageable page,
+        Set<TargetField> fields) {
         if (query.isPresent()) {
             return targetRepository.countByQuery(query.get())
                 .map((totalElements) -> pageService.createPaginationHeadersFromCount(page, totalElements))
-                .zipWith(Mono.just(targetRepository.findAllBy(query.get(), page)));
+                .zipWith(Mono.just(targetRepository.findAllBy(query.get(), page, fields)));
         }
         return pageService.createPaginationHeaders(page, targetBasicRepository)
-            .zipWith(Mono.just(targetRepository.findAllBy(page)));
+            .zipWith(Mono.just(targetRepository.findAllBy(page, fields)));
+    }
+
+    /**
+     * Fetches rest of the page after the given item, used when client reconnects to the stream. Items are found by
+     * index seek and count query is skipped, so no pagination headers are created.
+     *
+     * @param query Optional search term, the same as in interrupted request.
+     * @param page Page of interrupted request.
+     * @param fields Which fields of entries to fetch.
+     * @param after Position of the last item client received.
+     *
+     * @return Flux with remaining entries of the page.
+     */
+    public Flux<TargetEntryDTO> resumeTargetPage(Optional<String> query, Pageable page, Set<TargetField> fields,
+        StreamPosition after) {
+        pageService.checkPage(page);
+        long remaining = page.getPageSize() - after.index() - 1;
+        if (remaining <= 0)
+            return Flux.empty();
+        if (query.isPresent())
+            return targetRepository.findAllAfter(query.get(), after.name()
+                .orElseThrow(() -> new IllegalArgumentException("Search position requires name")), after.itemID(),
+                (int) remaining, fields);
+        return targetRepository.findAllAfter(after.itemID(), (int) remaining, fields);
     }
 
     private TargetDTO toDto(Target target) {
@@ -193,10 +258,10 @@ public class TargetService {
             .map((tag) -> tag.getName())
             .collect(Collectors.toList());
         return new TargetDTO(target.getName(), target.getUrl(), Optional.ofNullable(target.getDescription()),
-            Optional.of(tags), Optional.of(target.getHeaders()), Optional.of(target.getCookies()));
+            Optional.of(tags), Optional.of(target.getHeaders().get()), Optional.of(target.getCookies().get()));
     }
 
-    private Target toEntity(Long targetId, TargetDTO dto, JsonNode swagger) {
+    private Target toEntity(Long targetId, TargetDTO dto, LazyJson<JsonNode> swagger) {
         List<Tag> tags = dto.tags()
             .orElse(List.of())
             .stream()
@@ -207,8 +272,8 @@ public class TargetService {
             dto.url(),
             dto.description().orElse(""),
             swagger,
-            dto.headers().orElse(Map.of()),
-            dto.cookies().orElse(Map.of()));
+            EncryptedMap.of(dto.headers().orElse(Map.of())),
+            EncryptedMap.of(dto.cookies().orElse(Map.of())));
         target.setTags(tags);
         return target;
     }
@@ -5,23 +5,28 @@ import artifixal.agrest.auth.CookieTokenPair;
 import artifixal.agrest.auth.LoginResult;
 import artifixal.agrest.dto.user.UserAuthenticationDTO;
 import artifixal.agrest.auth.UserRole;
+import artifixal.agrest.auth.throttle.LoginThrottleService;
 import artifixal.agrest.dto.user.SecurePassword;
+import artifixal.agrest.dto.user.UserSnapshot;
 import artifixal.agrest.repository.UserRepository;
 import artifixal.agrest.dto.user.UserCreationDTO;
 import artifixal.agrest.dto.vault.SecureCharSecret;
 import artifixal.agrest.entity.User;
 import artifixal.agrest.exceptions.AuthenticationException;
-import artifixal.agrest.exceptions.EntityNotFoundException;
+import artifixal.agrest.exceptions.HashingOverloadedException;
+import artifixal.agrest.exceptions.LoginThrottledException;
+import artifixal.agrest.metrics.ReactiveMetrics;
 import artifixal.agrest.token.paseto.PasetoService;
+import artifixal.agrest.token.revocation.RefreshTokenRevocationService;
 import artifixal.paseto4jutils.ParsedToken;
-import com.password4j.Password;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.identityconnectors.common.ByteUtil;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.DependsOn;
 import org.springframework.http.HttpCookie;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
@@ -30,33 +35,55 @@ import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Service related to user logic.
  */
 @Service
-@DependsOn("vaultInitRunner")
 @Slf4j
 @RequiredArgsConstructor
 public class UserService {
     public final static String ACCESS_TOKEN_COOKIE_NAME = "access_token";
     public final static String REFRESH_TOKEN_COOKIE_NAME = "refresh_token";
 
-    @Value("${hash.argon2.length}")
-    private int HASH_BYTES;
-
     private SecureCharSecret pepper;
 
+    /**
+     * Hash of random password, verified against when user doesn't exist so that response time doesn't reveal it.
+     */
+    private byte[] dummyHash;
+
     private final UserRepository repo;
     private final PasetoService pasetoService;
     private final VaultService vaultService;
+    private final PasswordHashService passwordHashService;
+    private final LoginThrottleService throttleService;
+    private final RefreshTokenRevocationService revocationService;
+    private final UserSnapshotCache snapshotCache;
+    private final ReactiveMetrics metrics;
+    private final MeterRegistry meterRegistry;
 
-    @PostConstruct
-    private void fetchPepper() {
-        pepper = vaultService.getPepper()
-            .block()
-            .getData()
-            .key();
+    /**
+     * Fetches pepper and prepares dummy hash. Has to complete before login.
+     *
+     * @return Mono completing when done.
+     */
+    public Mono<Void> loadPepper() {
+        return vaultService.getPepper()
+            // Copy, as cached one is cleared on eviction
+            .doOnNext((secret) -> pepper = new SecureCharSecret(secret.getData()
+                .key()
+                .value()
+                .clone()))
+            .then(Mono.defer(() -> {
+                byte[] randomPassword = new byte[32];
+                new SecureRandom().nextBytes(randomPassword);
+                return Mono.using(() -> new SecurePassword(randomPassword), this::hashPassword,
+                    SecurePassword::close);
+            }))
+            .doOnNext((hash) -> dummyHash = hash)
+            .then();
     }
 
     private ResponseCookie createTokenCookie(String name, String value, String path, long maxAge) {
@@ -69,15 +96,15 @@ public class UserService {
             .build();
     }
 
-    public byte[] hashPassword(SecurePassword password) {
-        try (password) {
-            byte[] hash = Password.hash(password.getValue())
-                .addPepper(pepper)
-                .addRandomSalt()
-                .withArgon2()
-                .getResultAsBytes();
-            return hash;
-        }
+    /**
+     * Hashes password on hashing executor. Password is cleared afterwards.
+     *
+     * @param password What to hash.
+     *
+     * @return Mono emiting hash.
+     */
+    public Mono<byte[]> hashPassword(SecurePassword password) {
+        return passwordHashService.hash(password, pepper);
     }
 
     private CookieTokenPair createTokenCookies(User user) {
@@ -96,36 +123,99 @@ public class UserService {
 
     /**
      * Verifies user credentials then creates tokens for him. Calculates hash
-     * even if user not found in database.
+     * even if user not found in database. Attempts are throttled per client
+     * address and per account, address gets locked out of account after too
+     * many failures on it.
      *
      * @param credentials User login data.
+     * @param clientAddress Address from which login is attempted.
      *
      * @return Refresh and access tokens.
      */
-    public Mono<LoginResult> login(UserAuthenticationDTO credentials) {
-        return repo.findByEmail(credentials.email())
-            .switchIfEmpty(Mono.error(new EntityNotFoundException("User", "")))
-            // Prevent timing attacks if no user with thiat email.
-            .onErrorResume((t) -> {
+    public Mono<LoginResult> login(UserAuthenticationDTO credentials, String clientAddress) {
+        final String email = credentials.email();
+        return throttleService.checkAllowed(clientAddress, email)
+            .flatMap((delay) -> delay.isZero()
+                ? authenticate(credentials)
+                : authenticate(credentials).delaySubscription(delay))
+            .flatMap((result) -> throttleService.recordSuccess(clientAddress, email)
+                .thenReturn(result))
+            .onErrorResume(AuthenticationException.class,
+                (err) -> throttleService.recordFailure(clientAddress, email)
+                    .then(Mono.error(err)))
+            // Transform all exceptions except overload and throttling to UNAUTHORIZED
+            .onErrorResume((err) -> !(err instanceof HashingOverloadedException
+                || err instanceof LoginThrottledException),
+                (err) -> Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, err.getMessage())))
+            // Return password buffer to the pool
+            .doFinally((signal) -> {
+                if (credentials.password() != null)
+                    credentials.password()
+                        .close();
+            })
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "UserService.login", result));
+    }
+
+    private Mono<LoginResult> authenticate(UserAuthenticationDTO credentials) {
+        return findByEmail(credentials.email())
+            .flatMap((user) -> passwordHashService.verify(credentials.password(), user.getHash(), pepper)
+                .flatMap((valid) -> {
+                    // Checked after hash so that response time doesn't reveal account state
+                    if (!valid || !UserSnapshot.of(user).isActive())
+                        return Mono.error(new AuthenticationException("Invalid credentials"));
+                    // Upgrade doesn't delay response, password is copied before login closes it
+                    if (passwordHashService.needsRehash(user.getHash()))
+                        rehash(user, credentials.password())
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .subscribe();
+                    log.info("User {} logged in", user.getId().toString());
+                    return Mono.just(new LoginResult(createTokenCookies(user), new AuthenticationResultDTO(
+                        user.getId().toString(), user.getEmail(), user.getRole())));
+                }))
+            // Prevent timing attacks if no user with that email.
+            .switchIfEmpty(Mono.defer(() -> {
                 log.debug("User not found");
-                byte[] randomBytes = ByteUtil.randomBytes(HASH_BYTES);
-                Password.check(credentials.password().getValue(), randomBytes)
-                    .withArgon2();
-                throw new AuthenticationException("Invalid credentials");
+                return passwordHashService.verify(credentials.password(), dummyHash, pepper)
+                    .then(Mono.error(new AuthenticationException("Invalid credentials")));
+            }));
+    }
+
+    /**
+     * Replaces stored hash with one using current Argon2 parameters. Hash is replaced only if it's still the verified
+     * one, so password changed meanwhile isn't overwritten. Runs apart from login, failure is only logged and upgrade
+     * is retried on next one.
+     */
+    private Mono<Void> rehash(User user, SecurePassword password) {
+        final SecurePassword copy = password.copy();
+        return hashPassword(copy)
+            .flatMap((hash) -> repo.updateHash(user.getId(), user.getHash(), hash)
+                .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "UserRepository.updateHash",
+                    result)))
+            .doOnNext((updated) -> {
+                if (updated > 0) {
+                    log.debug("Password of user {} rehashed", user.getId());
+                    countRehash("success");
+                } else {
+                    log.debug("Password of user {} changed during rehash, keeping new one", user.getId());
+                    countRehash("conflict");
+                }
             })
-            // Success
-            .map((user) -> {
-                boolean valid = Password.check(credentials.password().getValue(), user.getHash())
-                    .addPepper(pepper)
-                    .withArgon2();
-                if (!valid)
-                    throw new AuthenticationException("Invalid credentials");
-                log.info("User {} logged in", user.getId().toString());
-                return new LoginResult(createTokenCookies(user), new AuthenticationResultDTO(
-                    user.getId().toString(), user.getEmail(), user.getRole()));
+            .onErrorResume((err) -> {
+                log.warn("Failed to rehash password of user {}: {}", user.getId(), err.getMessage());
+                countRehash("failure");
+                return Mono.empty();
             })
-            // Transform all exceptions to UNAUTHORIZED
-            .onErrorResume((err) -> Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, err.getMessage())));
+            // Hash closes it, unless it was rejected before running
+            .doFinally((signal) -> copy.close())
+            .then();
+    }
+
+    private void countRehash(String result) {
+        Counter.builder("agrest.hash.rehash")
+            .description("Upgrades of outdated password hashes on login")
+            .tag("result", result)
+            .register(meterRegistry)
+            .increment();
     }
 
     /**
@@ -133,42 +223,101 @@ public class UserService {
      *
      * @param refreshToken Cookie containing refresh token.
      *
-     * @return Rotated tokens.
+     * @return Cookie with new access token.
      */
     public Mono<ResponseCookie> refreshAccessToken(HttpCookie refreshToken) {
+        return validateRefreshToken(refreshToken)
+            .flatMap((token) -> isRevoked(token)
+                .map((revoked) -> {
+                    if (revoked)
+                        throw new AuthenticationException("Refresh token revoked");
+                    return UUID.fromString(token.getSubject());
+                }))
+            .flatMap((userID) -> snapshotCache.get(userID))
+            .map((user) -> {
+                if (!user.isActive())
+                    throw new AuthenticationException("Account is not active");
+                return user;
+            })
+            .map((user) -> createTokenCookie(ACCESS_TOKEN_COOKIE_NAME,
+                pasetoService.createAccessToken(user.id(), user.role()),
+                "/",
+                PasetoService.ACCESS_TOKEN_VALID_PERIOD))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "UserService.refreshAccessToken", result));
+    }
+
+    /**
+     * Revokes refresh token till its expiration.
+     *
+     * @param refreshToken Cookie containing refresh token.
+     *
+     * @return Cookie removing refresh token from client.
+     */
+    public Mono<ResponseCookie> revokeRefreshToken(HttpCookie refreshToken) {
+        return validateRefreshToken(refreshToken)
+            .flatMap((token) -> {
+                String jti = token.get(PasetoService.TOKEN_ID_CLAIM);
+                if (jti == null)
+                    return Mono.error(new AuthenticationException("Token can't be revoked"));
+                Duration validFor = Duration.between(LocalDateTime.now(), token.getExpirationAsLocalDateTime());
+                return revocationService.revoke(jti, validFor);
+            })
+            .then(Mono.fromSupplier(() -> createTokenCookie(REFRESH_TOKEN_COOKIE_NAME, "", "/v1/auth/refresh", 0)))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "UserService.revokeRefreshToken", result));
+    }
+
+    private Mono<ParsedToken> validateRefreshToken(HttpCookie refreshToken) {
         if (refreshToken == null)
             throw new AuthenticationException("Missing refresh token");
         if (!refreshToken.getName().equals(REFRESH_TOKEN_COOKIE_NAME))
             throw new AuthenticationException("Not a refresh token");
-        return pasetoService.validateToken(refreshToken.getValue())
-            .map((auth) -> {
-                ParsedToken token = (ParsedToken) auth.getCredentials();
-                return UUID.fromString(token.getSubject());
-            })
-            .flatMap((userID) -> repo.findById(userID))
-            .map((user) -> createTokenCookie(REFRESH_TOKEN_COOKIE_NAME,
-                pasetoService.createAccessTokenForUser(user),
-                "/v1/auth/refresh",
-                PasetoService.REFRESH_TOKEN_VALID_PERIOD));
+        return pasetoService.validateRefreshToken(refreshToken.getValue())
+            .map((auth) -> (ParsedToken) auth.getCredentials());
+    }
+
+    /**
+     * Refresh tokens always carry token ID, one without it can't be checked and is treated as revoked.
+     */
+    private Mono<Boolean> isRevoked(ParsedToken token) {
+        String jti = token.get(PasetoService.TOKEN_ID_CLAIM);
+        return (jti != null) ? revocationService.isRevoked(jti) : Mono.just(true);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     public Mono<User> createUser(UserCreationDTO newUserData) {
-        byte[] hash = hashPassword(newUserData.getPassword());
         UserRole role = UserRole.fromInt(newUserData.getRole());
-        User user = new User(newUserData.getEmail(), hash, role,
-            newUserData.getExpireDate(),
-            newUserData.isEnabled(), newUserData.isLocked(),
-            newUserData.isForcedPasswordChange());
-        return repo.save(user);
+        // Password buffer is returned to the pool even if hashing doesn't run
+        return Mono.using(newUserData::getPassword, this::hashPassword, SecurePassword::close)
+            .map((hash) -> new User(newUserData.getEmail(), hash, role,
+                newUserData.getExpireDate(),
+                newUserData.isEnabled(), newUserData.isLocked(),
+                newUserData.isForcedPasswordChange()))
+            .flatMap((user) -> repo.save(user)
+                .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "UserRepository.save", result)))
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "UserService.createUser", result));
     }
 
     public Mono<User> getUser(UUID userID) {
-        return repo.findById(userID);
+        return findById(userID)
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "UserService.getUserByID", result));
     }
 
     public Mono<User> getUser(String email) {
-        return repo.findByEmail(email);
+        return findByEmail(email)
+            .transform((result) -> metrics.timed(ReactiveMetrics.SERVICE, "UserService.getUserByEmail", result));
+    }
+
+    /**
+     * Repository is generated by Spring Data, so its queries are timed here.
+     */
+    private Mono<User> findById(UUID userID) {
+        return repo.findById(userID)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "UserRepository.findById", result));
+    }
+
+    private Mono<User> findByEmail(String email) {
+        return repo.findByEmail(email)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "UserRepository.findByEmail", result));
     }
 
     public static Mono<String> getCurrentUserID() {
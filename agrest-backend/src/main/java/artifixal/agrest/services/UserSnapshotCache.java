@@ -0,0 +1,56 @@
+package artifixal.agrest.services;
+
+import artifixal.agrest.dto.user.UserSnapshot;
+import artifixal.agrest.metrics.ReactiveMetrics;
+import artifixal.agrest.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Short lived cache of user snapshots, so token refresh doesn't query database each time.
+ * Entries are invalidated when user is saved, TTL bounds staleness of changes made outside the application.
+ */
+@Component
+public class UserSnapshotCache {
+
+    private final UserRepository repo;
+    private final ReactiveMetrics metrics;
+    private final AsyncCache<UUID, UserSnapshot> cache;
+
+    public UserSnapshotCache(UserRepository repo, @Value("${app.user.cache.ttl}") Duration ttl,
+        @Value("${app.user.cache.size}") int maximumSize, MeterRegistry meterRegistry, ReactiveMetrics metrics) {
+        this.repo = repo;
+        this.metrics = metrics;
+        cache = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maximumSize)
+            .recordStats()
+            .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-snapshot");
+    }
+
+    /**
+     * @param userID User ID.
+     *
+     * @return Mono emiting snapshot or empty if user doesn't exist.
+     */
+    public Mono<UserSnapshot> get(UUID userID) {
+        // Concurrent lookups of the same user share single query
+        return Mono.fromFuture(() -> cache.get(userID, (id, executor) -> repo.findById(id)
+            .transform((result) -> metrics.timed(ReactiveMetrics.REPOSITORY, "UserRepository.findById", result))
+            .map(UserSnapshot::of)
+            .toFuture()));
+    }
+
+    public void invalidate(UUID userID) {
+        cache.synchronous()
+            .invalidate(userID);
+    }
+}
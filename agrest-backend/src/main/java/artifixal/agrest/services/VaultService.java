@@ -5,69 +5,141 @@ import artifixal.agrest.dto.vault.KeyPairDTO;
 import artifixal.agrest.dto.vault.PepperDTO;
 import artifixal.agrest.dto.vault.SecureSecret;
 import artifixal.agrest.dto.vault.SingleKeyDTO;
+import artifixal.agrest.metrics.ReactiveMetrics;
+import artifixal.agrest.services.secrets.SecretStore;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.vault.core.ReactiveVaultTemplate;
 import org.springframework.vault.core.SecretNotFoundException;
 import org.springframework.vault.support.Versioned;
-import org.springframework.vault.support.Versioned.Metadata;
+import org.springframework.vault.support.Versioned.Version;
 import reactor.core.publisher.Mono;
 
 /**
- * Service related to HashiCorp Vault operations.
+ * Service related to HashiCorp Vault operations, secrets are accessed through {@code SecretStore}, so that a local
+ * store can stand in for Vault. All secret reads go through single cache which serves stale values while refreshing
+ * them in background, so Vault latency and outages stay off the request path. Failed refreshes are retried with
+ * exponential backoff. Refreshed secrets aren't zeroed, as callers may still use them, evicted ones are zeroed after
+ * delay.
  */
+@Slf4j
 @Service
 public class VaultService {
 
-    @Value("${spring.cloud.vault.kv.backend}")
-    private String keyValPath;
+    /**
+     * Minutes after which cached secret is refreshed.
+     */
+    @Value("${spring.cloud.vault.kv.cache.ttl}")
+    private int cacheMinTTL;
 
+    /**
+     * Minutes after which failure to refresh secret is reported as error.
+     */
     @Value("${spring.cloud.vault.kv.cache.maxttl}")
     private int cacheMaxTTL;
 
-    @Value("${spring.cloud.vault.kv.cache.ttl}")
-    private int cacheMinTTL;
-
     @Value("${spring.cloud.vault.kv.cache.size}")
     private int cacheSize;
 
-    private record TypedKey(String path, Class<? extends Eraseable> type) {
+    @Value("${app.vault.cache.backoff-min}")
+    private Duration backoffMin;
+
+    @Value("${app.vault.cache.backoff-max}")
+    private Duration backoffMax;
+
+    @Value("${app.vault.cache.erase-delay}")
+    private Duration eraseDelay;
+
+    /**
+     * @param version Secret version, 0 for the latest one.
+     */
+    private record TypedKey(String path, Class<? extends Eraseable> type, int version) {
     };
 
-    private final ReactiveVaultTemplate vaultTemplate;
-    private AsyncLoadingCache<TypedKey, Versioned<? extends Eraseable>> vaultCache;
+    /**
+     * Secret with time of its fetch.
+     */
+    private record CachedSecret(Versioned<? extends Eraseable> secret, long fetchedAt) {
+    };
+
+    /**
+     * Refresh progress of single key.
+     */
+    private static class RefreshState {
+
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile int failures;
+        private volatile long nextAttemptAt;
+    }
 
-    public VaultService(ReactiveVaultTemplate vaultTemplate) {
-        this.vaultTemplate = vaultTemplate;
+    private final SecretStore secretStore;
+    private final MeterRegistry meterRegistry;
+    private final ReactiveMetrics metrics;
+    private AsyncLoadingCache<TypedKey, CachedSecret> vaultCache;
+    private final ConcurrentHashMap<TypedKey, RefreshState> refreshStates = new ConcurrentHashMap<>();
+    private Counter refreshSuccessCounter;
+    private Counter refreshFailureCounter;
+
+    public VaultService(SecretStore secretStore, MeterRegistry meterRegistry, ReactiveMetrics metrics) {
+        this.secretStore = secretStore;
+        this.meterRegistry = meterRegistry;
+        this.metrics = metrics;
     }
 
     @PostConstruct
     private void initCache() {
+        // No expiry, entries are replaced only by successful refresh
         vaultCache = Caffeine.newBuilder()
-            .refreshAfterWrite(Duration.ofMinutes(cacheMinTTL))
-            .expireAfterWrite(Duration.ofMinutes(cacheMaxTTL))
             .maximumSize(cacheSize)
-            .scheduler(Scheduler.systemScheduler())
+            .recordStats()
             .removalListener((key, value, cause) -> {
-                if (value != null)
-                    ((Versioned<Eraseable>) value).getData()
-                        .clear();
+                // Replaced secret may still be held by callers which read it before refresh, it's left to GC
+                if (value != null && cause != RemovalCause.REPLACED)
+                    eraseLater((CachedSecret) value);
             })
-            .buildAsync((key, executor) -> {
-                return vaultTemplate.opsForVersionedKeyValue(keyValPath)
-                    .get(key.path(), key.type())
-                    .toFuture();
-            });
+            .buildAsync((key, executor) -> fetch(key)
+                .map((secret) -> new CachedSecret(secret, System.currentTimeMillis()))
+                .toFuture());
+        CaffeineCacheMetrics.monitor(meterRegistry, vaultCache, "vault");
+        refreshSuccessCounter = createRefreshCounter("success");
+        refreshFailureCounter = createRefreshCounter("failure");
+    }
+
+    /**
+     * Zeroes evicted secret once requests which got it before eviction are done with it.
+     */
+    private void eraseLater(CachedSecret evicted) {
+        CompletableFuture.runAsync(() -> evicted.secret()
+            .getData()
+            .clear(), CompletableFuture.delayedExecutor(eraseDelay.toMillis(), TimeUnit.MILLISECONDS));
     }
 
-    public Mono<Metadata> writeSecret(String path, String key, char[] value) {
-        return vaultTemplate.opsForVersionedKeyValue(keyValPath)
-            .put(path, key);
+    private Counter createRefreshCounter(String result) {
+        return Counter.builder("agrest.vault.cache.refresh")
+            .description("Background refreshes of cached Vault secrets")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private Mono<Versioned<? extends Eraseable>> fetch(TypedKey key) {
+        Mono<Versioned<? extends Eraseable>> result = (key.version() == 0)
+            ? secretStore.get(key.path(), key.type())
+                .map((secret) -> (Versioned<? extends Eraseable>) secret)
+            : secretStore.get(key.path(), Version.from(key.version()), key.type())
+                .map((secret) -> (Versioned<? extends Eraseable>) secret);
+        return metrics.timed(ReactiveMetrics.SERVICE, "VaultService.fetch", result);
     }
 
     public Mono<Versioned<SecureSecret>> readSecret(String path) {
@@ -75,15 +147,56 @@ public class VaultService {
     }
 
     private <T extends Eraseable> Mono<Versioned<T>> getOrFetch(String path, Class<T> clazz) {
-        TypedKey key = new TypedKey(path, clazz);
+        return getOrFetch(path, clazz, 0);
+    }
+
+    private <T extends Eraseable> Mono<Versioned<T>> getOrFetch(String path, Class<T> clazz, int version) {
+        TypedKey key = new TypedKey(path, clazz, version);
         return Mono.fromFuture(vaultCache.get(key))
             .onErrorResume((err) -> Mono.error(
                 new SecretNotFoundException("Missing secret from Vault|" + err, path)))
             .map((result) -> {
-                return (Versioned<T>) result;
+                refreshIfStale(key, result);
+                return (Versioned<T>) result.secret();
             });
     }
 
+    /**
+     * Starts background refresh of stale secret, unless one is already running or key is backing off after
+     * failure. Caller gets current value immediately.
+     */
+    private void refreshIfStale(TypedKey key, CachedSecret cached) {
+        long now = System.currentTimeMillis();
+        // Specific versions never change
+        if (key.version() != 0 || now - cached.fetchedAt() < Duration.ofMinutes(cacheMinTTL).toMillis())
+            return;
+        RefreshState state = refreshStates.computeIfAbsent(key, (k) -> new RefreshState());
+        if (now < state.nextAttemptAt || !state.running.compareAndSet(false, true))
+            return;
+        fetch(key)
+            .doFinally((signal) -> state.running.set(false))
+            .subscribe((secret) -> {
+                vaultCache.put(key, CompletableFuture.completedFuture(
+                    new CachedSecret(secret, System.currentTimeMillis())));
+                state.failures = 0;
+                state.nextAttemptAt = 0;
+                refreshSuccessCounter.increment();
+            }, (err) -> onRefreshFailure(key, cached, state, err));
+    }
+
+    private void onRefreshFailure(TypedKey key, CachedSecret cached, RefreshState state, Throwable err) {
+        refreshFailureCounter.increment();
+        int failures = ++state.failures;
+        long backoff = backoffMin.toMillis() << Math.min(failures - 1, 20);
+        state.nextAttemptAt = System.currentTimeMillis() + Math.min(backoff, backoffMax.toMillis());
+        long staleMinutes = Duration.ofMillis(System.currentTimeMillis() - cached.fetchedAt()).toMinutes();
+        if (staleMinutes >= cacheMaxTTL)
+            log.error("Serving {} minutes old secret {}, refresh failed {} times: {}", staleMinutes, key.path(),
+                failures, err.getMessage());
+        else
+            log.warn("Failed to refresh secret {}, serving cached one: {}", key.path(), err.getMessage());
+    }
+
     public Mono<Versioned<SingleKeyDTO>> getCsrfKey() {
         return getOrFetch("agrest-app/csrf", SingleKeyDTO.class);
     }
@@ -92,8 +205,35 @@ public class VaultService {
         return getOrFetch("agrest-app/paseto-keys", KeyPairDTO.class);
     }
 
+    /**
+     * @param version Vault version of the key pair.
+     *
+     * @return Given version of PASETO key pair.
+     */
+    public Mono<Versioned<KeyPairDTO>> getPasetoKeys(int version) {
+        return getOrFetch("agrest-app/paseto-keys", KeyPairDTO.class, version);
+    }
+
+    /**
+     * @return The latest key encryption key, wrapping data keys.
+     */
+    public Mono<Versioned<SingleKeyDTO>> getDataKek() {
+        return getOrFetch("agrest-app/data-kek", SingleKeyDTO.class);
+    }
+
+    /**
+     * @param version Vault version of the key.
+     *
+     * @return Given version of key encryption key.
+     */
+    public Mono<Versioned<SingleKeyDTO>> getDataKek(int version) {
+        return getOrFetch("agrest-app/data-kek", SingleKeyDTO.class, version);
+    }
+
+    /**
+     * Returned pepper is cleared some time after eviction from cache, callers keeping it should copy it.
+     */
     public Mono<Versioned<PepperDTO>> getPepper() {
-        return vaultTemplate.opsForVersionedKeyValue(keyValPath)
-            .get("agrest-app/pepper", PepperDTO.class);
+        return getOrFetch("agrest-app/pepper", PepperDTO.class);
     }
 }
@@ -0,0 +1,108 @@
+package artifixal.agrest.services.crypto;
+
+import artifixal.agrest.exceptions.DecryptionException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * AES-GCM with random nonce prepended to ciphertext. {@code Cipher} instance is reused per thread, so provider lookup
+ * happens once per thread.
+ */
+class AesGcm {
+
+    private final static String TRANSFORMATION = "AES/GCM/NoPadding";
+    private final static int NONCE_BYTES = 12;
+    private final static int TAG_BITS = 128;
+
+    private final static SecureRandom RANDOM = new SecureRandom();
+
+    private final static ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM not available", e);
+        }
+    });
+
+    private AesGcm() {
+    }
+
+    /**
+     * @param key AES key.
+     * @param plaintext Data to encrypt.
+     * @param aad Data authenticated along ciphertext, has to be the same on decryption.
+     *
+     * @return Nonce followed by ciphertext and tag.
+     */
+    public static byte[] encrypt(SecretKey key, byte[] plaintext, byte[] aad) {
+        return encrypt(key, plaintext, 0, plaintext.length, aad);
+    }
+
+    /**
+     * Encrypts part of buffer.
+     *
+     * @see #encrypt(SecretKey, byte[], byte[])
+     */
+    public static byte[] encrypt(SecretKey key, byte[] plaintext, int offset, int length, byte[] aad) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        RANDOM.nextBytes(nonce);
+        byte[] result = new byte[NONCE_BYTES + length + TAG_BITS / 8];
+        System.arraycopy(nonce, 0, result, 0, NONCE_BYTES);
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(aad);
+            cipher.doFinal(plaintext, offset, length, result, NONCE_BYTES);
+            return result;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Encryption failed", e);
+        }
+    }
+
+    /**
+     * Encrypts remaining bytes of buffer, which can be direct one.
+     *
+     * @see #encrypt(SecretKey, byte[], byte[])
+     */
+    public static byte[] encrypt(SecretKey key, ByteBuffer plaintext, byte[] aad) {
+        byte[] nonce = new byte[NONCE_BYTES];
+        RANDOM.nextBytes(nonce);
+        byte[] result = new byte[NONCE_BYTES + plaintext.remaining() + TAG_BITS / 8];
+        System.arraycopy(nonce, 0, result, 0, NONCE_BYTES);
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(aad);
+            cipher.doFinal(plaintext, ByteBuffer.wrap(result, NONCE_BYTES, result.length - NONCE_BYTES));
+            return result;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Encryption failed", e);
+        }
+    }
+
+    /**
+     * @param key AES key.
+     * @param data Result of {@link #encrypt(SecretKey, byte[], byte[])}.
+     * @param aad The same data as authenticated on encryption.
+     *
+     * @return Plaintext.
+     *
+     * @throws DecryptionException If data was tampered with or key doesn't match.
+     */
+    public static byte[] decrypt(SecretKey key, byte[] data, byte[] aad) {
+        if (data.length < NONCE_BYTES + TAG_BITS / 8)
+            throw new DecryptionException("Ciphertext too short");
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, NONCE_BYTES));
+            cipher.updateAAD(aad);
+            return cipher.doFinal(data, NONCE_BYTES, data.length - NONCE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new DecryptionException("Decryption failed", e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package artifixal.agrest.services.crypto;
+
+import artifixal.agrest.exceptions.DecryptionException;
+import artifixal.agrest.services.VaultService;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Manages data keys of envelope encryption. Each scope has its own AES key, stored in database wrapped by key
+ * encryption key held in Vault, so neither database nor Vault alone reveals the data. Keys are unwrapped once at
+ * startup and kept in memory, so encryption needs no network I/O.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DataKeyService {
+
+    /**
+     * Scopes for which active key is created at startup.
+     */
+    public final static List<String> SCOPES = List.of(FieldEncryptionService.TARGETS_SCOPE);
+
+    private final static int KEY_BYTES = 32;
+
+    /**
+     * Unwrapped data key.
+     */
+    public record DataKey(int id, SecretKey key) {
+    }
+
+    private record WrappedKey(int id, String scope, byte[] wrappedKey, int kekVersion, boolean active) {
+    }
+
+    private final DatabaseClient databaseClient;
+    private final VaultService vaultService;
+
+    private final Map<Integer, DataKey> keys = new ConcurrentHashMap<>();
+    private final Map<String, DataKey> activeKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Creates missing active keys and unwraps all stored ones. Has to complete before encrypted columns are accessed.
+     *
+     * @return Mono completing when keys are ready.
+     */
+    public Mono<Void> loadKeys() {
+        return Flux.fromIterable(SCOPES)
+            .concatMap(this::createIfMissing)
+            .thenMany(fetchWrappedKeys())
+            .concatMap((wrapped) -> unwrap(wrapped)
+                .doOnNext((key) -> {
+                    keys.put(key.id(), key);
+                    if (wrapped.active())
+                        activeKeys.put(wrapped.scope(), key);
+                }))
+            .then(Mono.fromRunnable(() -> log.info("Loaded {} data keys", keys.size())));
+    }
+
+    /**
+     * @param scope Scope of the data.
+     *
+     * @return Key with which new data of the scope is encrypted.
+     */
+    public DataKey getActiveKey(String scope) {
+        DataKey key = activeKeys.get(scope);
+        if (key == null)
+            throw new IllegalStateException("No active data key for scope " + scope);
+        return key;
+    }
+
+    /**
+     * @param id Key ID stored along ciphertext.
+     *
+     * @return Key which encrypted the data.
+     *
+     * @throws DecryptionException If key is unknown.
+     */
+    public DataKey getKey(int id) {
+        DataKey key = keys.get(id);
+        if (key == null)
+            throw new DecryptionException("Unknown data key " + id);
+        return key;
+    }
+
+    /**
+     * Nodes starting at once may both try to create key, unique index lets only one insert win.
+     */
+    private Mono<Void> createIfMissing(String scope) {
+        return databaseClient.sql("SELECT 1 FROM data_keys WHERE scope = :scope AND active")
+            .bind("scope", scope)
+            .fetch()
+            .first()
+            .hasElement()
+            .flatMap((exists) -> exists ? Mono.empty() : createKey(scope));
+    }
+
+    private Mono<Void> createKey(String scope) {
+        return vaultService.getDataKek()
+            .flatMap((kek) -> {
+                byte[] key = new byte[KEY_BYTES];
+                new SecureRandom().nextBytes(key);
+                byte[] wrapped;
+                try {
+                    wrapped = AesGcm.encrypt(toKey(kek.getData().key().value()), key, aad(scope));
+                } finally {
+                    Arrays.fill(key, (byte) 0);
+                }
+                return databaseClient.sql("""
+                    INSERT INTO data_keys (scope, wrapped_key, kek_version, active)
+                    VALUES (:scope, :key, :kekVersion, true)
+                    ON CONFLICT (scope) WHERE active DO NOTHING
+                    """)
+                    .bind("scope", scope)
+                    .bind("key", wrapped)
+                    .bind("kekVersion", kek.getVersion().getVersion())
+                    .fetch()
+                    .rowsUpdated();
+            })
+            .doOnNext((created) -> {
+                if (created > 0)
+                    log.info("Created data key for scope {}", scope);
+            })
+            .then();
+    }
+
+    private Flux<WrappedKey> fetchWrappedKeys() {
+        return databaseClient.sql("SELECT id, scope, wrapped_key, kek_version, active FROM data_keys")
+            .map((row, metadata) -> new WrappedKey(row.get("id", Integer.class),
+                row.get("scope", String.class),
+                row.get("wrapped_key", byte[].class),
+                row.get("kek_version", Integer.class),
+                row.get("active", Boolean.class)))
+            .all();
+    }
+
+    private Mono<DataKey> unwrap(WrappedKey wrapped) {
+        return vaultService.getDataKek(wrapped.kekVersion())
+            .map((kek) -> {
+                byte[] key = AesGcm.decrypt(toKey(kek.getData().key().value()), wrapped.wrappedKey(),
+                    aad(wrapped.scope()));
+                try {
+                    return new DataKey(wrapped.id(), toKey(key));
+                } finally {
+                    Arrays.fill(key, (byte) 0);
+                }
+            });
+    }
+
+    private SecretKey toKey(byte[] key) {
+        // Spec keeps own copy
+        return new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * Binds wrapped key to its scope, so it can't be moved to other one.
+     */
+    private byte[] aad(String scope) {
+        return scope.getBytes(StandardCharsets.UTF_8);
+    }
+}
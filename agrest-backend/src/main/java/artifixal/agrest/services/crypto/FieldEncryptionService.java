@@ -0,0 +1,99 @@
+package artifixal.agrest.services.crypto;
+
+import artifixal.agrest.exceptions.DecryptionException;
+import artifixal.agrest.services.crypto.DataKeyService.DataKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Encrypts JSON column values with AES-GCM under data key of their scope. Encrypted value is stored as JSON envelope
+ * {@code {"$enc": {"k": keyID, "d": base64(nonce + ciphertext)}}}, so column stays valid jsonb.
+ */
+@Service
+@RequiredArgsConstructor
+public class FieldEncryptionService {
+
+    /**
+     * Scope of target headers and cookies.
+     */
+    public final static String TARGETS_SCOPE = "targets";
+
+    /**
+     * Only field of envelope object.
+     */
+    public final static String ENVELOPE_FIELD = "$enc";
+    public final static String KEY_ID_FIELD = "k";
+    public final static String DATA_FIELD = "d";
+
+    private final static byte[] ENVELOPE_START = ("{\"" + ENVELOPE_FIELD + "\":{\"" + KEY_ID_FIELD + "\":")
+        .getBytes(StandardCharsets.US_ASCII);
+    private final static byte[] DATA_START = (",\"" + DATA_FIELD + "\":\"").getBytes(StandardCharsets.US_ASCII);
+    private final static byte[] ENVELOPE_END = "\"}}".getBytes(StandardCharsets.US_ASCII);
+
+    private final DataKeyService dataKeyService;
+
+    /**
+     * Encrypts value and encodes it straight into envelope, without intermediate strings.
+     *
+     * @param scope Scope of the data.
+     * @param plaintext Buffer with plaintext JSON.
+     * @param length Count of plaintext bytes at the start of buffer.
+     *
+     * @return UTF-8 envelope JSON.
+     */
+    public byte[] encrypt(String scope, byte[] plaintext, int length) {
+        DataKey key = dataKeyService.getActiveKey(scope);
+        return toEnvelope(key, AesGcm.encrypt(key.key(), plaintext, 0, length, aad(scope)));
+    }
+
+    /**
+     * Encrypts remaining bytes of buffer, which can be direct one, so plaintext doesn't have to be copied to heap.
+     *
+     * @see #encrypt(String, byte[], int)
+     */
+    public byte[] encrypt(String scope, ByteBuffer plaintext) {
+        DataKey key = dataKeyService.getActiveKey(scope);
+        return toEnvelope(key, AesGcm.encrypt(key.key(), plaintext, aad(scope)));
+    }
+
+    private byte[] toEnvelope(DataKey key, byte[] data) {
+        byte[] keyID = Integer.toString(key.id())
+            .getBytes(StandardCharsets.US_ASCII);
+        byte[] encoded = Base64.getEncoder()
+            .encode(data);
+        byte[] envelope = new byte[ENVELOPE_START.length + keyID.length + DATA_START.length + encoded.length
+            + ENVELOPE_END.length];
+        int pos = append(envelope, 0, ENVELOPE_START);
+        pos = append(envelope, pos, keyID);
+        pos = append(envelope, pos, DATA_START);
+        pos = append(envelope, pos, encoded);
+        append(envelope, pos, ENVELOPE_END);
+        return envelope;
+    }
+
+    /**
+     * @param scope Scope of the data.
+     * @param keyID Key ID from envelope.
+     * @param data Decoded data from envelope.
+     *
+     * @return Plaintext JSON, which caller should zero after use.
+     *
+     * @throws DecryptionException If data can't be decrypted.
+     */
+    public byte[] decrypt(String scope, int keyID, byte[] data) {
+        DataKey key = dataKeyService.getKey(keyID);
+        return AesGcm.decrypt(key.key(), data, aad(scope));
+    }
+
+    private int append(byte[] target, int pos, byte[] part) {
+        System.arraycopy(part, 0, target, pos, part.length);
+        return pos + part.length;
+    }
+
+    private byte[] aad(String scope) {
+        return scope.getBytes(StandardCharsets.UTF_8);
+    }
+}
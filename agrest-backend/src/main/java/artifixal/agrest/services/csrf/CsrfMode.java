@@ -0,0 +1,16 @@
+package artifixal.agrest.services.csrf;
+
+/**
+ * How CSRF tokens are tracked.
+ */
+public enum CsrfMode {
+    /**
+     * Each token is kept in {@code CsrfTokenStore} and removed on use.
+     */
+    STORED,
+
+    /**
+     * Token carries its issue time under HMAC, expiry and replay are checked on the node.
+     */
+    STATELESS
+}
@@ -0,0 +1,30 @@
+package artifixal.agrest.services.csrf;
+
+import java.time.Duration;
+import java.util.List;
+import reactor.core.publisher.Mono;
+
+/**
+ * Store of issued single use CSRF tokens.
+ */
+public interface CsrfTokenStore {
+
+    /**
+     * Stores tokens, each valid for given time.
+     *
+     * @param tokens Tokens to store.
+     * @param ttl Time after which tokens are invalid.
+     *
+     * @return Mono completing when tokens are stored.
+     */
+    Mono<Void> store(List<String> tokens, Duration ttl);
+
+    /**
+     * Removes token.
+     *
+     * @param token Token to remove.
+     *
+     * @return Mono emiting if token was stored and not expired.
+     */
+    Mono<Boolean> consume(String token);
+}
@@ -0,0 +1,80 @@
+package artifixal.agrest.services.csrf;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.stereotype.Component;
+
+/**
+ * HMAC-SHA256 calculator reusing initialized {@code Mac} instance per thread. Provider lookup happens once per
+ * thread and key schedule is set up again only when key version changes.
+ */
+@Component
+public class HmacEngine {
+
+    private final static String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<KeyedMac> macs = ThreadLocal.withInitial(KeyedMac::new);
+
+    /**
+     * Key shared by all threads, rebuilt on version change.
+     */
+    private volatile VersionedKey currentKey;
+
+    /**
+     * Calculates HMAC of concatenated parts.
+     *
+     * @param keyVersion Version of the key, key bytes are read only when it changes.
+     * @param key Key bytes.
+     * @param parts Data to authenticate.
+     *
+     * @return HMAC.
+     */
+    public byte[] calc(int keyVersion, byte[] key, byte[]... parts) {
+        VersionedKey versionedKey = getKey(keyVersion, key);
+        KeyedMac keyedMac = macs.get();
+        if (keyedMac.key != versionedKey)
+            keyedMac.init(versionedKey);
+        Mac mac = keyedMac.mac;
+        for (byte[] part : parts)
+            mac.update(part);
+        // Resets Mac for next use
+        return mac.doFinal();
+    }
+
+    private VersionedKey getKey(int keyVersion, byte[] key) {
+        VersionedKey current = currentKey;
+        if (current == null || current.version() != keyVersion) {
+            current = new VersionedKey(keyVersion, new SecretKeySpec(key, ALGORITHM));
+            currentKey = current;
+        }
+        return current;
+    }
+
+    private record VersionedKey(int version, SecretKeySpec spec) {
+    }
+
+    private static class KeyedMac {
+
+        private final Mac mac;
+        private VersionedKey key;
+
+        public KeyedMac() {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        }
+
+        public void init(VersionedKey key) {
+            try {
+                mac.init(key.spec());
+                this.key = key;
+            } catch (InvalidKeyException e) {
+                throw new IllegalStateException("Invalid HMAC key", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package artifixal.agrest.services.csrf;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Node local {@code CsrfTokenStore} for single node deployments and tests. Tokens are kept in concurrent map, expired
+ * ones are removed by timing wheel: each token is queued in slot of its expiry tick and slots are drained as the
+ * wheel turns, so expiry cost doesn't depend on count of stored tokens.
+ */
+@Component
+@ConditionalOnProperty(name = "app.csrf.store", havingValue = "memory")
+public class InMemoryCsrfTokenStore implements CsrfTokenStore {
+
+    /**
+     * Token expiry times in epoch millis.
+     */
+    private final ConcurrentHashMap<String, Long> tokens = new ConcurrentHashMap<>();
+    private final List<Queue<String>> wheel;
+    private final long tickMillis;
+    private final Clock clock;
+    private final ScheduledExecutorService ticker;
+
+    /**
+     * Last drained tick.
+     */
+    private long currentTick;
+
+    @Autowired
+    public InMemoryCsrfTokenStore(@Value("${app.csrf.memory.tick}") Duration tick,
+        @Value("${app.csrf.memory.slots}") int slots) {
+        this(tick, slots, Clock.systemUTC());
+    }
+
+    InMemoryCsrfTokenStore(Duration tick, int slots, Clock clock) {
+        this.tickMillis = tick.toMillis();
+        this.clock = clock;
+        wheel = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++)
+            wheel.add(new ConcurrentLinkedQueue<>());
+        currentTick = clock.millis() / tickMillis;
+        ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+            .name("csrf-wheel")
+            .daemon(true)
+            .factory());
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    @Override
+    public Mono<Void> store(List<String> newTokens, Duration ttl) {
+        return Mono.fromRunnable(() -> {
+            long expiresAt = clock.millis() + ttl.toMillis();
+            for (String token : newTokens) {
+                tokens.put(token, expiresAt);
+                schedule(token, expiresAt);
+            }
+        });
+    }
+
+    @Override
+    public Mono<Boolean> consume(String token) {
+        return Mono.fromSupplier(() -> {
+            Long expiresAt = tokens.remove(token);
+            return expiresAt != null && expiresAt > clock.millis();
+        });
+    }
+
+    /**
+     * @return Count of stored tokens, including expired ones not yet removed.
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    private void schedule(String token, long expiresAt) {
+        // Round up so token is never removed before expiry
+        long tick = (expiresAt + tickMillis - 1) / tickMillis;
+        wheel.get((int) (tick % wheel.size())).add(token);
+    }
+
+    /**
+     * Drains slots of ticks passed since last run.
+     */
+    synchronized void advance() {
+        long now = clock.millis();
+        long nowTick = now / tickMillis;
+        // After long pause every slot is visited at most once
+        long from = Math.max(currentTick + 1, nowTick - wheel.size() + 1);
+        for (long tick = from; tick <= nowTick; tick++) {
+            Queue<String> slot = wheel.get((int) (tick % wheel.size()));
+            int queued = slot.size();
+            for (int i = 0; i < queued; i++) {
+                String token = slot.poll();
+                if (token == null)
+                    break;
+                Long expiresAt = tokens.get(token);
+                if (expiresAt == null)
+                    continue;
+                if (expiresAt <= now)
+                    tokens.remove(token, expiresAt);
+                else
+                    // TTL longer than wheel span, wait for next turn
+                    schedule(token, expiresAt);
+            }
+        }
+        currentTick = nowTick;
+    }
+}
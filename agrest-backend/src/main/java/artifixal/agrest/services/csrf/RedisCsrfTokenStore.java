@@ -0,0 +1,55 @@
+package artifixal.agrest.services.csrf;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code CsrfTokenStore} shared between nodes, keeping tokens in Redis.
+ */
+@Component
+@ConditionalOnProperty(name = "app.csrf.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedisCsrfTokenStore implements CsrfTokenStore {
+
+    private final static String KEY_PREFIX = "csrf:";
+
+    /**
+     * Stores all tokens of batch with TTL in single round trip.
+     */
+    private final static RedisScript<Long> STORE_SCRIPT = RedisScript.of("""
+        for _, key in ipairs(KEYS) do
+            redis.call('SET', key, 'valid', 'EX', ARGV[1])
+        end
+        return #KEYS
+        """, Long.class);
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Override
+    public Mono<Void> store(List<String> tokens, Duration ttl) {
+        if (tokens.size() == 1)
+            return redisTemplate.opsForValue()
+                .set(KEY_PREFIX + tokens.get(0), "valid", ttl)
+                .then();
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (String token : tokens)
+            keys.add(KEY_PREFIX + token);
+        return redisTemplate.execute(STORE_SCRIPT, keys, List.of(String.valueOf(ttl.toSeconds())))
+            .then();
+    }
+
+    @Override
+    public Mono<Boolean> consume(String token) {
+        return redisTemplate.opsForValue()
+            .getAndDelete(KEY_PREFIX + token)
+            .map((value) -> value.equals("valid"))
+            .defaultIfEmpty(false);
+    }
+}
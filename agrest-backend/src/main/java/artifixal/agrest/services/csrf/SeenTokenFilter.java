@@ -0,0 +1,56 @@
+package artifixal.agrest.services.csrf;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node local record of used stateless CSRF tokens. Tokens are grouped into buckets by their issue time, so whole
+ * bucket is dropped once all of its tokens expired.
+ */
+public class SeenTokenFilter {
+
+    private final long ttlSeconds;
+    private final long bucketSeconds;
+    private final ConcurrentHashMap<Long, Set<String>> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttl Token lifetime.
+     * @param bucketCount Count of buckets lifetime is split into.
+     */
+    public SeenTokenFilter(Duration ttl, int bucketCount) {
+        this.ttlSeconds = ttl.toSeconds();
+        this.bucketSeconds = Math.max(1, ttlSeconds / bucketCount);
+    }
+
+    /**
+     * Marks token as used. Caller must reject expired tokens beforehand.
+     *
+     * @param token Token or its unique part.
+     * @param issuedAt Token issue time in epoch seconds.
+     * @param now Current time in epoch seconds.
+     *
+     * @return {@code true} if token wasn't used before.
+     */
+    public boolean markSeen(String token, long issuedAt, long now) {
+        evictExpired(now);
+        return buckets.computeIfAbsent(issuedAt / bucketSeconds, (bucket) -> ConcurrentHashMap.newKeySet())
+            .add(token);
+    }
+
+    /**
+     * @return Count of remembered tokens.
+     */
+    public int size() {
+        return buckets.values()
+            .stream()
+            .mapToInt(Set::size)
+            .sum();
+    }
+
+    private void evictExpired(long now) {
+        long oldestValid = (now - ttlSeconds) / bucketSeconds;
+        buckets.keySet()
+            .removeIf((bucket) -> bucket < oldestValid);
+    }
+}
@@ -0,0 +1,105 @@
+package artifixal.agrest.services.secrets;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.vault.support.Versioned;
+import org.springframework.vault.support.Versioned.Metadata;
+import org.springframework.vault.support.Versioned.Version;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Node local {@code SecretStore} for tests and benchmarks, which shouldn't depend on running Vault. Secrets live only
+ * as long as the application, so they are recreated on each start. Data is kept serialized like in Vault, so reads
+ * go through the same deserializers. Optional latency allows to simulate Vault round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "app.secrets.store", havingValue = "memory")
+public class InMemorySecretStore implements SecretStore {
+
+    private final static JsonMapper MAPPER = JsonMapper.builder()
+        .build();
+
+    private record SecretVersion(byte[] json, Instant createdAt) {
+    };
+
+    /**
+     * Versions of secrets by path, version N is at index N-1.
+     */
+    private final ConcurrentHashMap<String, List<SecretVersion>> secrets = new ConcurrentHashMap<>();
+    private final Duration latency;
+
+    public InMemorySecretStore(@Value("${app.secrets.memory.latency}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public <T> Mono<Versioned<T>> get(String path, Class<T> type) {
+        return read(path, 0, type);
+    }
+
+    @Override
+    public <T> Mono<Versioned<T>> get(String path, Version version, Class<T> type) {
+        return read(path, version.getVersion(), type);
+    }
+
+    @Override
+    public Mono<Boolean> exists(String path) {
+        return delayed(Mono.fromSupplier(() -> secrets.containsKey(path)));
+    }
+
+    @Override
+    public Mono<Metadata> put(String path, Map<String, String> data) {
+        return delayed(Mono.fromSupplier(() -> {
+            SecretVersion secret = new SecretVersion(MAPPER.writeValueAsBytes(data), Instant.now());
+            List<SecretVersion> versions = secrets.computeIfAbsent(path, (key) -> new ArrayList<>());
+            int version;
+            synchronized (versions) {
+                versions.add(secret);
+                version = versions.size();
+            }
+            return createMetadata(secret, version);
+        }));
+    }
+
+    /**
+     * @param version Version to read, 0 for the latest one.
+     */
+    private <T> Mono<Versioned<T>> read(String path, int version, Class<T> type) {
+        return delayed(Mono.fromSupplier(() -> {
+            List<SecretVersion> versions = secrets.get(path);
+            if (versions == null)
+                return null;
+            SecretVersion secret;
+            int number;
+            synchronized (versions) {
+                number = (version == 0) ? versions.size() : version;
+                if (number < 1 || number > versions.size())
+                    return null;
+                secret = versions.get(number - 1);
+            }
+            return Versioned.create(MAPPER.readValue(secret.json(), type), createMetadata(secret, number));
+        }));
+    }
+
+    private Metadata createMetadata(SecretVersion secret, int version) {
+        return Metadata.builder()
+            .createdAt(secret.createdAt())
+            .version(Version.from(version))
+            .build();
+    }
+
+    private <T> Mono<T> delayed(Mono<T> operation) {
+        if (latency.isZero())
+            return operation;
+        return Mono.delay(latency)
+            .then(operation);
+    }
+}
@@ -0,0 +1,54 @@
+package artifixal.agrest.services.secrets;
+
+import java.util.Map;
+import org.springframework.vault.support.Versioned;
+import org.springframework.vault.support.Versioned.Metadata;
+import org.springframework.vault.support.Versioned.Version;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versioned key-value store of application secrets. Each write creates new version of the secret, older versions
+ * stay readable.
+ */
+public interface SecretStore {
+
+    /**
+     * Reads the latest version of secret.
+     *
+     * @param <T> Secret type.
+     * @param path Secret path.
+     * @param type Class to map secret data to.
+     *
+     * @return Mono emiting secret or empty if there is none.
+     */
+    <T> Mono<Versioned<T>> get(String path, Class<T> type);
+
+    /**
+     * Reads given version of secret.
+     *
+     * @param <T> Secret type.
+     * @param path Secret path.
+     * @param version Version to read.
+     * @param type Class to map secret data to.
+     *
+     * @return Mono emiting secret or empty if there is no such version.
+     */
+    <T> Mono<Versioned<T>> get(String path, Version version, Class<T> type);
+
+    /**
+     * @param path Secret path.
+     *
+     * @return Mono emiting if any version of secret exists.
+     */
+    Mono<Boolean> exists(String path);
+
+    /**
+     * Writes new version of secret.
+     *
+     * @param path Secret path.
+     * @param data Secret data.
+     *
+     * @return Mono emiting metadata of created version.
+     */
+    Mono<Metadata> put(String path, Map<String, String> data);
+}
@@ -0,0 +1,48 @@
+package artifixal.agrest.services.secrets;
+
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.vault.core.ReactiveVaultTemplate;
+import org.springframework.vault.core.ReactiveVersionedKeyValueOperations;
+import org.springframework.vault.support.Versioned;
+import org.springframework.vault.support.Versioned.Metadata;
+import org.springframework.vault.support.Versioned.Version;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code SecretStore} backed by HashiCorp Vault KV version 2 engine.
+ */
+@Component
+@ConditionalOnProperty(name = "app.secrets.store", havingValue = "vault", matchIfMissing = true)
+public class VaultSecretStore implements SecretStore {
+
+    private final ReactiveVersionedKeyValueOperations kv;
+
+    public VaultSecretStore(ReactiveVaultTemplate vaultTemplate,
+        @Value("${spring.cloud.vault.kv.backend}") String keyValPath) {
+        kv = vaultTemplate.opsForVersionedKeyValue(keyValPath);
+    }
+
+    @Override
+    public <T> Mono<Versioned<T>> get(String path, Class<T> type) {
+        return kv.get(path, type);
+    }
+
+    @Override
+    public <T> Mono<Versioned<T>> get(String path, Version version, Class<T> type) {
+        return kv.get(path, version, type);
+    }
+
+    @Override
+    public Mono<Boolean> exists(String path) {
+        return kv.get(path)
+            .hasElement();
+    }
+
+    @Override
+    public Mono<Metadata> put(String path, Map<String, String> data) {
+        return kv.put(path, data);
+    }
+}
@@ -0,0 +1,62 @@
+package artifixal.agrest.stream;
+
+import artifixal.agrest.config.StreamProperties;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SequenceWriter;
+
+/**
+ * Writes items as newline delimited JSON. Items are grouped into batches by size or time window, each batch is
+ * encoded into single buffer and flushed once, instead of one write and flush per item.
+ */
+@Component
+@AllArgsConstructor
+public class NdjsonBatchWriter {
+
+    private final ObjectMapper mapper;
+    private final StreamProperties streamProperties;
+
+    /**
+     * @param response Where to write items.
+     * @param items Items to write.
+     *
+     * @return Mono completing when all items were written.
+     */
+    public Mono<Void> write(ServerHttpResponse response, Flux<?> items) {
+        response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        return response.writeAndFlushWith(items
+            .bufferTimeout(streamProperties.getBatchSize(), streamProperties.getBatchWindow())
+            .map((batch) -> Mono.fromSupplier(() -> encode(batch, response))));
+    }
+
+    private DataBuffer encode(List<?> batch, ServerHttpResponse response) {
+        DataBuffer buffer = response.bufferFactory()
+            .allocateBuffer(batch.size() * 128);
+        try (OutputStream out = buffer.asOutputStream();
+            SequenceWriter writer = mapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            writer.writeAll(batch);
+            writer.flush();
+            out.write('\n');
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+}
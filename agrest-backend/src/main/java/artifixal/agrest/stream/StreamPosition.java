@@ -0,0 +1,64 @@
+package artifixal.agrest.stream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Position of item in streamed page, sent as SSE event ID so that client reconnecting with {@code Last-Event-ID}
+ * resumes right after it. Position carries whole sort key of the item, so resuming doesn't depend on the item still
+ * existing unchanged.
+ *
+ * @param itemID ID of the item.
+ * @param index Index of the item within the page.
+ * @param name Name of the item, present if page is sorted by it.
+ */
+public record StreamPosition(long itemID, long index, Optional<String> name) {
+
+    private final static char SEPARATOR = ':';
+
+    public StreamPosition(long itemID, long index) {
+        this(itemID, index, Optional.empty());
+    }
+
+    /**
+     * @return Event ID in form {@code itemID:index}, followed by {@code :name} encoded in URL safe Base64 if name is
+     * present.
+     */
+    public String toEventID() {
+        String eventID = String.valueOf(itemID) + SEPARATOR + index;
+        return name.map((value) -> eventID + SEPARATOR + Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(value.getBytes(StandardCharsets.UTF_8)))
+            .orElse(eventID);
+    }
+
+    /**
+     * @param eventID Last event ID sent by client.
+     *
+     * @return Position, empty if event ID is missing or malformed.
+     */
+    public static Optional<StreamPosition> parse(String eventID) {
+        if (eventID == null)
+            return Optional.empty();
+        int separator = eventID.indexOf(SEPARATOR);
+        if (separator < 0)
+            return Optional.empty();
+        int nameSeparator = eventID.indexOf(SEPARATOR, separator + 1);
+        int indexEnd = (nameSeparator < 0) ? eventID.length() : nameSeparator;
+        try {
+            long itemID = Long.parseLong(eventID, 0, separator, 10);
+            long index = Long.parseLong(eventID, separator + 1, indexEnd, 10);
+            if (index < 0)
+                return Optional.empty();
+            Optional<String> name = (nameSeparator < 0)
+                ? Optional.empty()
+                : Optional.of(new String(Base64.getUrlDecoder()
+                    .decode(eventID.substring(nameSeparator + 1)), StandardCharsets.UTF_8));
+            return Optional.of(new StreamPosition(itemID, index, name));
+        } catch (IllegalArgumentException e) {
+            // Malformed number or Base64
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package artifixal.agrest.stream;
+
+import artifixal.agrest.config.TargetChangesProperties;
+import artifixal.agrest.dto.target.TargetChangeDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Live feed of target changes, notified by database triggers through Postgres LISTEN/NOTIFY. Single listening
+ * connection per node is shared by all subscribers and held only while anyone is subscribed. Changes are coalesced
+ * in time window and each subscriber gets own bounded buffer, so slow client loses the oldest events instead of
+ * holding back others.
+ */
+@Slf4j
+@Component
+public class TargetChangeFeed {
+
+    private final static String CHANNEL = "target_changes";
+
+    private final ConnectionFactory connectionFactory;
+    private final ObjectMapper mapper;
+    private final TargetChangesProperties properties;
+    private final Flux<List<TargetChangeDTO>> changes;
+    private final Counter droppedCounter;
+    private final Counter reconnectCounter;
+    private final Sinks.Many<Boolean> listening = Sinks.many()
+        .replay()
+        .latestOrDefault(false);
+
+    public TargetChangeFeed(ConnectionFactory connectionFactory, ObjectMapper mapper,
+        TargetChangesProperties properties, MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.mapper = mapper;
+        this.properties = properties;
+        droppedCounter = Counter.builder("agrest.sse.dropped")
+            .description("Change batches dropped for slow subscribers")
+            .tag("endpoint", "/v1/targets/changes")
+            .register(meterRegistry);
+        reconnectCounter = Counter.builder("agrest.targets.changes.reconnects")
+            .description("Reconnects of the Postgres LISTEN connection")
+            .register(meterRegistry);
+        changes = listen()
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(properties.getMaxReconnectDelay())
+                .doBeforeRetry((signal) -> {
+                    reconnectCounter.increment();
+                    log.warn("Target change listener lost, reconnecting: {}", signal.failure().getMessage());
+                }))
+            .bufferTimeout(properties.getMaxBatch(), properties.getCoalesceWindow())
+            .map(this::coalesce)
+            .publish()
+            .refCount(1, properties.getListenerGrace());
+    }
+
+    /**
+     * @return Flux of coalesced changes, buffered separately for each subscriber.
+     */
+    public Flux<List<TargetChangeDTO>> subscribe() {
+        return changes.onBackpressureBuffer(properties.getBufferSize(),
+            (dropped) -> {
+                droppedCounter.increment();
+                log.debug("Dropped {} target changes for slow subscriber", dropped.size());
+            },
+            BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * @return Mono completing once listening connection has issued LISTEN, so changes made after it are delivered.
+     * Listening starts with the first subscriber.
+     */
+    public Mono<Void> ready() {
+        return listening.asFlux()
+            .filter(Boolean::booleanValue)
+            .next()
+            .then();
+    }
+
+    private Flux<TargetChangeDTO> listen() {
+        return Flux.usingWhen(connectionFactory.create(),
+            (connection) -> {
+                PostgresqlConnection postgresConnection = unwrap(connection);
+                return postgresConnection.createStatement("LISTEN " + CHANNEL)
+                    .execute()
+                    .flatMap(PostgresqlResult::getRowsUpdated)
+                    .then(Mono.fromRunnable(() -> listening.tryEmitNext(true)))
+                    .thenMany(postgresConnection.getNotifications())
+                    .mapNotNull(this::parse)
+                    // Closed connection has to be re-established like failed one
+                    .concatWith(Mono.error(new IllegalStateException("Listening connection closed")));
+            },
+            this::release);
+    }
+
+    /**
+     * Connections from pool are wrapped, LISTEN needs the driver connection.
+     */
+    private PostgresqlConnection unwrap(Connection connection) {
+        Object current = connection;
+        while (!(current instanceof PostgresqlConnection) && current instanceof Wrapped<?> wrapped)
+            current = wrapped.unwrap();
+        if (current instanceof PostgresqlConnection postgresConnection)
+            return postgresConnection;
+        throw new IllegalStateException("Target change feed requires PostgreSQL connection");
+    }
+
+    /**
+     * Stops listening before connection goes back to pool.
+     */
+    private Mono<Void> release(Connection connection) {
+        listening.tryEmitNext(false);
+        return Mono.from(connection.createStatement("UNLISTEN " + CHANNEL)
+            .execute())
+            .flatMap((result) -> Mono.from(result.getRowsUpdated()))
+            .onErrorResume((err) -> Mono.empty())
+            .then(Mono.from(connection.close()));
+    }
+
+    private TargetChangeDTO parse(Notification notification) {
+        try {
+            return mapper.readValue(notification.getParameter(), TargetChangeDTO.class);
+        } catch (JacksonException e) {
+            log.warn("Malformed target change notification: {}", notification.getParameter());
+            return null;
+        }
+    }
+
+    /**
+     * Merges changes of the same target, keeping order of their latest changes.
+     */
+    private List<TargetChangeDTO> coalesce(List<TargetChangeDTO> batch) {
+        LinkedHashMap<Long, TargetChangeDTO> latest = new LinkedHashMap<>();
+        for (TargetChangeDTO change : batch) {
+            TargetChangeDTO previous = latest.remove(change.id());
+            // Target created in this window is still new to subscribers
+            boolean created = previous != null && previous.operation().equals("INSERT")
+                && change.operation().equals("UPDATE");
+            latest.put(change.id(), (created) ? previous : change);
+        }
+        return List.copyOf(latest.values());
+    }
+}
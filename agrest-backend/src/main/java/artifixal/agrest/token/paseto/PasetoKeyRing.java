@@ -0,0 +1,92 @@
+package artifixal.agrest.token.paseto;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.paseto4j.commons.PrivateKey;
+import org.paseto4j.commons.PublicKey;
+
+/**
+ * Immutable set of PASETO keys. Tokens are signed with the current key and verified with key matching ID from their
+ * footer, so tokens signed with previous keys stay valid after rotation. Keys are kept decoded, so lookup is the only
+ * per request cost.
+ */
+public class PasetoKeyRing {
+
+    /**
+     * Length of key ID in bytes, before encoding.
+     */
+    private final static int KEY_ID_BYTES = 12;
+
+    private final String signingKeyId;
+    private final PrivateKey signingKey;
+    private final Map<String, PublicKey> verifyKeys;
+
+    /**
+     * @param signingKeyId ID of the current key.
+     * @param signingKey Current private key.
+     * @param verifyKeys Public keys by their ID, including the current one.
+     */
+    public PasetoKeyRing(String signingKeyId, PrivateKey signingKey, Map<String, PublicKey> verifyKeys) {
+        this.signingKeyId = signingKeyId;
+        this.signingKey = signingKey;
+        this.verifyKeys = Map.copyOf(verifyKeys);
+    }
+
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * @param keyId ID from token footer.
+     *
+     * @return Matching key or {@code null} if not in ring.
+     */
+    public PublicKey getVerifyKey(String keyId) {
+        return verifyKeys.get(keyId);
+    }
+
+    public Collection<PublicKey> getVerifyKeys() {
+        return verifyKeys.values();
+    }
+
+    /**
+     * Creates ring with the same verification keys, which still signs with the key of given ring.
+     *
+     * @param previous Ring whose signing key to keep.
+     *
+     * @return New ring.
+     */
+    public PasetoKeyRing signingWith(PasetoKeyRing previous) {
+        Map<String, PublicKey> keys = new HashMap<>(verifyKeys);
+        keys.put(previous.signingKeyId, previous.getVerifyKey(previous.signingKeyId));
+        return new PasetoKeyRing(previous.signingKeyId, previous.signingKey, keys);
+    }
+
+    /**
+     * Derives key ID from public key, so the same key gets the same ID on every node.
+     *
+     * @param encodedPublicKey X.509 encoded public key.
+     *
+     * @return Base64url encoded truncated SHA-256 of the key.
+     */
+    public static String keyId(byte[] encodedPublicKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(encodedPublicKey);
+            return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(Arrays.copyOf(digest, KEY_ID_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -7,30 +7,43 @@ import artifixal.agrest.services.VaultService;
 import artifixal.paseto4jutils.ParsedToken;
 import artifixal.paseto4jutils.PasetoBuilder;
 import artifixal.paseto4jutils.PasetoParser;
+import jakarta.annotation.PreDestroy;
 import java.security.KeyFactory;
-import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
 import org.paseto4j.commons.PasetoException;
 import org.paseto4j.commons.PrivateKey;
 import org.paseto4j.commons.PublicKey;
 import org.paseto4j.commons.Version;
-import org.springframework.context.annotation.DependsOn;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.vault.support.Versioned;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
 
 /**
- * Service related to issuing and validating PASETO tokens.
+ * Service related to issuing and validating PASETO tokens. Keys are kept in a ring of the latest Vault versions of
+ * the key pair, refreshed in background, so rotation in Vault doesn't invalidate already issued tokens.
  */
+@Slf4j
 @Service
-@DependsOn("vaultInitRunner")
 public class PasetoService {
     /**
      * How long in seconds is access token valid.
@@ -42,43 +55,140 @@ public class PasetoService {
      */
     public final static int REFRESH_TOKEN_VALID_PERIOD = 7 * 24 * 3600;
 
+    /**
+     * Claim holding unique token ID, used for revocation.
+     */
+    public final static String TOKEN_ID_CLAIM = "jti";
+
+    /**
+     * Claim holding token type, so refresh token can't be used as access token and the other way round.
+     */
+    public final static String TOKEN_TYPE_CLAIM = "type";
+
+    public final static String ACCESS_TOKEN_TYPE = "access";
+    public final static String REFRESH_TOKEN_TYPE = "refresh";
+
+    private final static JsonMapper FOOTER_MAPPER = JsonMapper.builder()
+        .build();
+
     private final VaultService vaultService;
-    private PrivateKey signingKey;
-    private PublicKey verifyKey;
 
-    public PasetoService(VaultService vaultService) throws InvalidKeySpecException, NoSuchAlgorithmException {
+    /**
+     * How many latest key versions are accepted for verification.
+     */
+    private final int ringSize;
+    private final Duration refreshInterval;
+    private volatile PasetoKeyRing keyRing;
+
+    /**
+     * Newest key which is already used for verification, but not yet for signing.
+     */
+    private String pendingKeyId;
+    private Disposable refreshTask;
+
+    public PasetoService(VaultService vaultService, @Value("${app.paseto.keys.ring-size}") int ringSize,
+        @Value("${app.paseto.keys.refresh-interval}") Duration refreshInterval) {
         this.vaultService = vaultService;
-        KeyPair pasetoKeys = getKeyPair();
-        signingKey = new PrivateKey(pasetoKeys.getPrivate(), Version.V4);
-        verifyKey = new PublicKey(pasetoKeys.getPublic(), Version.V4);
+        this.ringSize = ringSize;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Loads key ring and schedules its background refresh. Has to complete before tokens are issued or validated.
+     *
+     * @return Mono completing when keys are loaded.
+     */
+    public Mono<Void> loadKeys() {
+        return loadKeyRing()
+            .doOnNext((ring) -> {
+                keyRing = ring;
+                scheduleRefresh();
+            })
+            .then();
+    }
+
+    private void scheduleRefresh() {
+        if (refreshTask != null)
+            return;
+        refreshTask = Flux.interval(refreshInterval, refreshInterval)
+            .onBackpressureDrop()
+            .concatMap((tick) -> loadKeyRing()
+                .doOnNext(this::swapKeyRing)
+                .onErrorResume((err) -> {
+                    log.warn("Failed to refresh PASETO keys, keeping current ones: {}", err.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    private void stopRefresh() {
+        if (refreshTask != null)
+            refreshTask.dispose();
     }
 
     public String createAccessTokenForUser(User user) {
-        final LocalDateTime issued = LocalDateTime.now();
-        return PasetoBuilder.Public(signingKey, Version.V4)
-            .setIssuedAt(issued)
-            .setExpiration(issued.plusSeconds(ACCESS_TOKEN_VALID_PERIOD))
-            .setSubject(user.getId().toString())
-            .set("role", String.valueOf(user.getRole()))
-            .build();
+        return createAccessToken(user.getId(), user.getRole());
+    }
+
+    public String createAccessToken(UUID userID, int role) {
+        return createToken(userID, role, ACCESS_TOKEN_VALID_PERIOD, ACCESS_TOKEN_TYPE, null);
     }
 
     public String createRefreshTokenForUser(User user) {
+        return createToken(user.getId(), user.getRole(), REFRESH_TOKEN_VALID_PERIOD, REFRESH_TOKEN_TYPE,
+            UUID.randomUUID().toString());
+    }
+
+    /**
+     * @param type Token type, one of {@code ACCESS_TOKEN_TYPE} and {@code REFRESH_TOKEN_TYPE}.
+     * @param tokenId Unique token ID or {@code null} if token isn't revocable.
+     */
+    private String createToken(UUID userID, int role, int validPeriod, String type, String tokenId) {
+        final PasetoKeyRing ring = keyRing;
         final LocalDateTime issued = LocalDateTime.now();
-        return PasetoBuilder.Public(signingKey, Version.V4)
+        var builder = PasetoBuilder.Public(ring.getSigningKey(), Version.V4)
             .setIssuedAt(issued)
-            .setExpiration(issued.plusSeconds(REFRESH_TOKEN_VALID_PERIOD))
-            .setSubject(user.getId().toString())
-            .set("role", String.valueOf(user.getRole()))
+            .setExpiration(issued.plusSeconds(validPeriod))
+            .setSubject(userID.toString())
+            .set("role", String.valueOf(role))
+            .set(TOKEN_TYPE_CLAIM, type);
+        if (tokenId != null)
+            builder.set(TOKEN_ID_CLAIM, tokenId);
+        return builder.setFooter("{\"kid\":\"" + ring.getSigningKeyId() + "\"}")
             .build();
     }
 
+    /**
+     * Validates access token. Refresh tokens are rejected.
+     *
+     * @param stringToken Token to validate.
+     *
+     * @return Mono emiting authentication of token owner.
+     */
     public Mono<Authentication> validateToken(String stringToken) {
-        final ParsedToken token = PasetoParser.Public(verifyKey)
-            .parse(stringToken);
+        return validateToken(stringToken, ACCESS_TOKEN_TYPE);
+    }
+
+    /**
+     * Validates refresh token. Access tokens are rejected. Revocation has to be checked by caller.
+     *
+     * @param stringToken Token to validate.
+     *
+     * @return Mono emiting authentication of token owner.
+     */
+    public Mono<Authentication> validateRefreshToken(String stringToken) {
+        return validateToken(stringToken, REFRESH_TOKEN_TYPE);
+    }
+
+    private Mono<Authentication> validateToken(String stringToken, String expectedType) {
+        final ParsedToken token = parse(stringToken);
         LocalDateTime now = LocalDateTime.now();
         if (now.isAfter(token.getExpirationAsLocalDateTime()))
             throw new PasetoException("Token expired");
+        // Tokens issued before types were added are rejected too
+        if (!expectedType.equals(token.get(TOKEN_TYPE_CLAIM)))
+            throw new PasetoException("Invalid token type");
         SimpleGrantedAuthority role;
         try {
             int roleValue = Integer.parseInt(token.get("role"));
@@ -91,15 +201,114 @@ public class PasetoService {
             .just(new UsernamePasswordAuthenticationToken(token.getSubject(), token, Collections.singleton(role)));
     }
 
-    private KeyPair getKeyPair() throws InvalidKeySpecException, NoSuchAlgorithmException {
-        KeyPairDTO keys = vaultService.getPasetoKeys()
-            .block()
-            .getData();
-        var pvSpec = new PKCS8EncodedKeySpec(keys.privateKey().value());
-        var pubSpec = new X509EncodedKeySpec(keys.publicKey().value());
-        KeyFactory keyAlg = KeyFactory.getInstance("Ed25519");
-        var pvKey = keyAlg.generatePrivate(pvSpec);
-        var pubKey = keyAlg.generatePublic(pubSpec);
-        return new KeyPair(pubKey, pvKey);
+    /**
+     * Verifies token with key selected by footer key ID. Tokens without footer, issued before key IDs were added,
+     * are tried against every key in the ring.
+     */
+    private ParsedToken parse(String stringToken) {
+        final PasetoKeyRing ring = keyRing;
+        String keyId = readKeyId(stringToken);
+        if (keyId != null) {
+            PublicKey key = ring.getVerifyKey(keyId);
+            if (key == null)
+                throw new PasetoException("Unknown signing key");
+            return PasetoParser.Public(key)
+                .parse(stringToken);
+        }
+        PasetoException lastError = new PasetoException("No verification keys");
+        for (PublicKey key : ring.getVerifyKeys()) {
+            try {
+                return PasetoParser.Public(key)
+                    .parse(stringToken);
+            } catch (PasetoException e) {
+                lastError = e;
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * Reads key ID from unverified footer. It is only used to pick the key, footer is authenticated during
+     * verification.
+     *
+     * @return Key ID or {@code null} if token has no footer.
+     */
+    private String readKeyId(String stringToken) {
+        // Footer is the optional fourth part: v4.public.payload.footer
+        String[] parts = stringToken.split("\\.");
+        if (parts.length != 4)
+            return null;
+        try {
+            JsonNode kid = FOOTER_MAPPER.readTree(Base64.getUrlDecoder().decode(parts[3]))
+                .get("kid");
+            return (kid != null) ? kid.asString() : null;
+        } catch (RuntimeException e) {
+            throw new PasetoException("Malformed token footer");
+        }
+    }
+
+    /**
+     * New key is only used for verification until next refresh, so that other nodes load it before they receive
+     * tokens signed with it.
+     */
+    private void swapKeyRing(PasetoKeyRing newRing) {
+        final PasetoKeyRing current = keyRing;
+        String newKeyId = newRing.getSigningKeyId();
+        if (!newKeyId.equals(current.getSigningKeyId())) {
+            if (!newKeyId.equals(pendingKeyId)) {
+                pendingKeyId = newKeyId;
+                log.info("PASETO key {} accepted for verification, signing switches on next refresh", newKeyId);
+                keyRing = newRing.signingWith(current);
+                return;
+            }
+            log.info("PASETO signing key rotated to {}", newKeyId);
+        }
+        pendingKeyId = null;
+        keyRing = newRing;
+    }
+
+    /**
+     * Fetches latest key pair and up to {@code ringSize - 1} previous versions. Versions which were deleted in
+     * Vault are skipped.
+     */
+    private Mono<PasetoKeyRing> loadKeyRing() {
+        return vaultService.getPasetoKeys()
+            .flatMap((latest) -> {
+                int version = latest.getVersion()
+                    .getVersion();
+                int oldest = Math.max(1, version - ringSize + 1);
+                return Flux.range(oldest, Math.max(0, version - oldest))
+                    .concatMap((previous) -> vaultService.getPasetoKeys(previous)
+                        .onErrorResume((err) -> Mono.empty()))
+                    .collectList()
+                    .map((previousKeys) -> createKeyRing(latest, previousKeys));
+            });
+    }
+
+    private PasetoKeyRing createKeyRing(Versioned<KeyPairDTO> latest, List<Versioned<KeyPairDTO>> previous) {
+        try {
+            KeyFactory keyAlg = KeyFactory.getInstance("Ed25519");
+            Map<String, PublicKey> verifyKeys = new HashMap<>();
+            for (Versioned<KeyPairDTO> keys : previous) {
+                byte[] encoded = keys.getData()
+                    .publicKey()
+                    .value();
+                verifyKeys.put(PasetoKeyRing.keyId(encoded), decodePublicKey(keyAlg, encoded));
+            }
+            KeyPairDTO current = latest.getData();
+            byte[] encodedPublic = current.publicKey()
+                .value();
+            String signingKeyId = PasetoKeyRing.keyId(encodedPublic);
+            verifyKeys.put(signingKeyId, decodePublicKey(keyAlg, encodedPublic));
+            var pvKey = keyAlg.generatePrivate(new PKCS8EncodedKeySpec(current.privateKey()
+                .value()));
+            return new PasetoKeyRing(signingKeyId, new PrivateKey(pvKey, Version.V4), verifyKeys);
+        } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Invalid PASETO keys", e);
+        }
+    }
+
+    private PublicKey decodePublicKey(KeyFactory keyAlg, byte[] encoded) throws InvalidKeySpecException {
+        return new PublicKey(keyAlg.generatePublic(new X509EncodedKeySpec(encoded)), Version.V4);
     }
 }
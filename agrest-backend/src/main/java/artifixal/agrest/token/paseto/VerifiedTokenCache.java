@@ -0,0 +1,93 @@
+package artifixal.agrest.token.paseto;
+
+import artifixal.paseto4jutils.ParsedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bounded cache of already verified PASETO tokens. Tokens are keyed by their SHA-256 digest, so raw tokens are not
+ * kept in memory, and each entry expires together with its token.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Cache<ByteBuffer, Authentication> cache;
+
+    public VerifiedTokenCache(@Value("${app.paseto.cache.size}") int maximumSize, MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new TokenExpiry())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "paseto");
+    }
+
+    /**
+     * Returns cached authentication of the given token or validates it and caches result.
+     *
+     * @param token Token to authenticate.
+     * @param validator Used on cache miss, should verify signature and claims.
+     *
+     * @return Mono emiting authentication.
+     */
+    public Mono<Authentication> getOrValidate(String token, Function<String, Mono<Authentication>> validator) {
+        final ByteBuffer key = digest(token);
+        Authentication cached = cache.getIfPresent(key);
+        if (cached != null)
+            return Mono.just(cached);
+        return Mono.defer(() -> validator.apply(token))
+            .doOnNext((auth) -> cache.put(key, auth));
+    }
+
+    private ByteBuffer digest(String token) {
+        MessageDigest sha256 = SHA256.get();
+        return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Expires entry at token {@code exp} claim.
+     */
+    private static class TokenExpiry implements Expiry<ByteBuffer, Authentication> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Authentication auth, long currentTime) {
+            ParsedToken token = (ParsedToken) auth.getCredentials();
+            long nanos = Duration.between(LocalDateTime.now(), token.getExpirationAsLocalDateTime())
+                .toNanos();
+            return Math.max(0, nanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Authentication auth, long currentTime,
+            long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Authentication auth, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
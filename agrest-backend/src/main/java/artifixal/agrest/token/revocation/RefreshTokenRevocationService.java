@@ -0,0 +1,151 @@
+package artifixal.agrest.token.revocation;
+
+import artifixal.agrest.config.RevocationProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveSubscription.Message;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Service related to revoking refresh tokens. Revoked token IDs are stored in Redis with TTL matching token
+ * expiration and mirrored in local Bloom filter, so checking a token which isn't revoked never leaves the JVM. Only
+ * filter positives are confirmed in Redis. Until the filter is first loaded from Redis every check goes to Redis.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenRevocationService {
+
+    private final static String KEY_PREFIX = "revoked:";
+
+    /**
+     * Channel on which revocations are announced to other nodes.
+     */
+    private final static String CHANNEL = "revoked-tokens";
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final RevocationProperties properties;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * Does filter hold all revocations from Redis? Empty filter would accept every revoked token.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Filter being rebuilt, receives revocations made during rebuild.
+     */
+    private volatile BloomFilter pendingFilter;
+    private Disposable syncTask;
+    private Disposable subscription;
+
+    @PostConstruct
+    private void init() {
+        filter = createFilter();
+        subscription = redisTemplate.listenToChannel(CHANNEL)
+            .map(Message::getMessage)
+            .doOnNext(this::addToFilters)
+            // Missed announcements are picked up by next rebuild
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofMinutes(1))
+                .doBeforeRetry((signal) -> log.warn("Revocation channel failed, resubscribing: {}",
+                    signal.failure().getMessage())))
+            .subscribe();
+        // First load is done by startup, later ones also retry it if it failed
+        syncTask = Flux.interval(properties.getSyncInterval(), properties.getSyncInterval())
+            .onBackpressureDrop()
+            .concatMap((tick) -> loadFilter()
+                .onErrorResume((err) -> {
+                    log.warn("Failed to rebuild revocation filter, keeping current one: {}", err.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        syncTask.dispose();
+        subscription.dispose();
+    }
+
+    /**
+     * Checks if token was revoked.
+     *
+     * @param jti Token ID.
+     *
+     * @return Mono emiting if token was revoked.
+     */
+    public Mono<Boolean> isRevoked(String jti) {
+        if (loaded && !filter.mightContain(jti))
+            return Mono.just(false);
+        return redisTemplate.hasKey(KEY_PREFIX + jti);
+    }
+
+    /**
+     * Revokes token until it expires.
+     *
+     * @param jti Token ID.
+     * @param validFor Remaining token lifetime.
+     *
+     * @return Mono completing when revocation is stored.
+     */
+    public Mono<Void> revoke(String jti, Duration validFor) {
+        if (validFor.isNegative() || validFor.isZero())
+            return Mono.empty();
+        return redisTemplate.opsForValue()
+            .set(KEY_PREFIX + jti, "1", validFor)
+            .doOnSuccess((stored) -> addToFilters(jti))
+            .then(redisTemplate.convertAndSend(CHANNEL, jti))
+            .then();
+    }
+
+    /**
+     * Pending filter is written first. Revocation which misses it was stored in Redis before rebuild started, so scan
+     * of the rebuild finds it.
+     */
+    private void addToFilters(String jti) {
+        BloomFilter pending = pendingFilter;
+        if (pending != null)
+            pending.put(jti);
+        filter.put(jti);
+    }
+
+    /**
+     * Replaces filter with one built from revocations currently in Redis, so expired ones stop taking space.
+     *
+     * @return Mono completing when filter is replaced.
+     */
+    public Mono<Void> loadFilter() {
+        return Mono.defer(() -> {
+            final BloomFilter rebuilt = createFilter();
+            pendingFilter = rebuilt;
+            return redisTemplate.scan(ScanOptions.scanOptions()
+                .match(KEY_PREFIX + "*")
+                .count(1000)
+                .build())
+                .doOnNext((key) -> rebuilt.put(key.substring(KEY_PREFIX.length())))
+                .count()
+                .doOnNext((count) -> {
+                    filter = rebuilt;
+                    loaded = true;
+                    log.debug("Revocation filter rebuilt with {} tokens", count);
+                })
+                .doFinally((signal) -> pendingFilter = null)
+                .then();
+        });
+    }
+
+    private BloomFilter createFilter() {
+        return new BloomFilter(properties.getExpectedTokens(), properties.getFalsePositiveRate());
+    }
+}
@@ -0,0 +1,99 @@
+package artifixal.agrest.auth.throttle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@code InMemoryAttemptCounter}.
+ */
+public class InMemoryAttemptCounterUnitTest {
+
+    private final static Duration WINDOW = Duration.ofMinutes(10);
+
+    private MutableClock clock;
+    private InMemoryAttemptCounter counter;
+
+    @BeforeEach
+    public void setUp() {
+        // Start at the beginning of a window
+        clock = new MutableClock(Instant.ofEpochMilli(WINDOW.toMillis() * 1000));
+        counter = new InMemoryAttemptCounter(WINDOW, 100, clock);
+    }
+
+    @Test
+    public void shouldCountAttemptsInCurrentWindow() {
+        counter.increment("key").block();
+        counter.increment("key").block();
+        long count = counter.increment("key").block();
+
+        assertEquals(3, count);
+        assertEquals(3, counter.count("key").block());
+        assertEquals(0, counter.count("other").block());
+    }
+
+    @Test
+    public void shouldWeightPreviousWindow() {
+        for (int i = 0; i < 10; i++)
+            counter.increment("key").block();
+
+        // Quarter into the next window
+        clock.advance(WINDOW.plus(WINDOW.dividedBy(4)));
+
+        assertEquals(7, counter.count("key").block());
+        assertEquals(8, counter.increment("key").block());
+    }
+
+    @Test
+    public void shouldForgetAttemptsAfterTwoWindows() {
+        for (int i = 0; i < 10; i++)
+            counter.increment("key").block();
+
+        clock.advance(WINDOW.multipliedBy(2));
+
+        assertEquals(0, counter.count("key").block());
+    }
+
+    @Test
+    public void shouldResetCount() {
+        counter.increment("key").block();
+        counter.increment("key").block();
+
+        counter.reset("key").block();
+
+        assertEquals(0, counter.count("key").block());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        public MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        public void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package artifixal.agrest.auth.throttle;
+
+import artifixal.agrest.config.LoginThrottleProperties;
+import artifixal.agrest.exceptions.LoginThrottledException;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+/**
+ * Unit tests of the {@code LoginThrottleService}, with Redis unavailable so node local counters are used.
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoginThrottleServiceUnitTest {
+
+    private final static String EMAIL = "user@localhost";
+    private final static String ATTACKER_IP = "10.0.0.1";
+    private final static String USER_IP = "10.0.0.2";
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private LoginThrottleService throttleService;
+
+    @BeforeEach
+    public void setUp() {
+        LoginThrottleProperties properties = new LoginThrottleProperties();
+        properties.setWindow(Duration.ofMinutes(15));
+        properties.setMaxIpFailures(50);
+        properties.setMaxAccountFailures(10);
+        properties.setLockThreshold(3);
+        properties.setDelayThreshold(100);
+        properties.setBaseDelay(Duration.ofMillis(250));
+        properties.setMaxDelay(Duration.ofSeconds(5));
+        properties.setRedisTimeout(Duration.ofMillis(200));
+        properties.setLocalCacheSize(100);
+        throttleService = new LoginThrottleService(properties, redisTemplate);
+    }
+
+    @Test
+    public void shouldLockOnlyFailingAddressOutOfAccount() {
+        for (int i = 0; i < 3; i++)
+            throttleService.recordFailure(ATTACKER_IP, EMAIL)
+                .block();
+
+        // Act & Assert
+        assertThrows(LoginThrottledException.class, () -> throttleService.checkAllowed(ATTACKER_IP, EMAIL)
+            .block());
+        assertEquals(Duration.ZERO, throttleService.checkAllowed(USER_IP, EMAIL)
+            .block());
+    }
+
+    @Test
+    public void shouldUnlockAddressAfterSuccessfulLogin() {
+        for (int i = 0; i < 3; i++)
+            throttleService.recordFailure(USER_IP, EMAIL)
+                .block();
+
+        // Act
+        throttleService.recordSuccess(USER_IP, EMAIL)
+            .block();
+
+        // Assert
+        assertEquals(Duration.ZERO, throttleService.checkAllowed(USER_IP, EMAIL)
+            .block());
+    }
+
+    @Test
+    public void shouldThrottleAccountFromAllAddressesOverAccountLimit() {
+        for (int i = 0; i < 10; i++)
+            throttleService.recordFailure("10.0.1." + i, EMAIL)
+                .block();
+
+        // Act & Assert
+        assertThrows(LoginThrottledException.class, () -> throttleService.checkAllowed(USER_IP, EMAIL)
+            .block());
+    }
+}
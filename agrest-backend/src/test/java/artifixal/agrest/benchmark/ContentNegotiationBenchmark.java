@@ -0,0 +1,120 @@
+package artifixal.agrest.benchmark;
+
+import artifixal.agrest.dto.TagDTO;
+import artifixal.agrest.dto.TargetEntryDTO;
+import artifixal.agrest.dto.target.TargetDetailsDTO;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Compares encoding and decoding of target payloads in JSON, CBOR and Smile, as done by WebFlux codecs. Details
+ * carry large header and cookie maps, list is full page of entries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentNegotiationBenchmark {
+
+    private final static TypeReference<List<TargetEntryDTO>> ENTRY_LIST = new TypeReference<>() {
+    };
+
+    private final static String HEADER_VALUE = "ZXlKaGJHY2lPaUpJVXpJMU5pSjkuZXlKemRXSWlPaUl4TWpNME5UWTNPRGt3SW4w";
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"details", "list"})
+    public String payload;
+
+    private ObjectMapper mapper;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = switch (format) {
+            case "cbor" -> CBORMapper.builder()
+                .build();
+            case "smile" -> SmileMapper.builder()
+                .build();
+            default -> JsonMapper.builder()
+                .build();
+        };
+        value = (payload.equals("details")) ? createDetails() : createPage(100);
+        encoded = mapper.writeValueAsBytes(value);
+    }
+
+    private TargetDetailsDTO createDetails() {
+        Map<String, String> headers = new HashMap<>();
+        Map<String, String> cookies = new HashMap<>();
+        for (int i = 0; i < 256; i++) {
+            headers.put("X-Header-" + i, "value-" + i + "-" + HEADER_VALUE);
+            cookies.put("cookie" + i, String.valueOf(i * 7919L));
+        }
+        return new TargetDetailsDTO(1L, "Benchmark target", "https://bench.localhost/api/v1",
+            Optional.of("Target with exported browser cookie jar"), createTags(5), Optional.of(headers),
+            Optional.of(cookies), LocalDateTime.now(), Optional.of(LocalDateTime.now()));
+    }
+
+    private List<TargetEntryDTO> createPage(int size) {
+        List<TargetEntryDTO> page = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            page.add(new TargetEntryDTO(i, "Target " + i, "https://target" + i + ".bench.localhost", createTags(3),
+                Optional.empty()));
+        return page;
+    }
+
+    private List<TagDTO> createTags(int count) {
+        List<TagDTO> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            tags.add(new TagDTO(Optional.of((long) i), "tag" + i));
+        return tags;
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        if (payload.equals("details"))
+            return mapper.readValue(encoded, TargetDetailsDTO.class);
+        return mapper.readValue(encoded, ENTRY_LIST);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ContentNegotiationBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
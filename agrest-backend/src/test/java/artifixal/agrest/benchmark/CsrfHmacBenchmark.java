@@ -0,0 +1,97 @@
+package artifixal.agrest.benchmark;
+
+import artifixal.agrest.services.csrf.HmacEngine;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.codec.Hex;
+
+/**
+ * Compares CSRF token generation and validation with {@code Mac} created per call against reused
+ * {@code HmacEngine}. Token format matches {@code CsrfService}: nonce.hex(hmac(userID, nonce)).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CsrfHmacBenchmark {
+
+    private final static int KEY_VERSION = 1;
+
+    private byte[] key;
+    private byte[] userID;
+    private HmacEngine engine;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        userID = UUID.randomUUID().toString().getBytes();
+        engine = new HmacEngine();
+        token = generateWithEngine();
+    }
+
+    @Benchmark
+    public String generatePerCallMac() throws Exception {
+        String nonce = UUID.randomUUID().toString();
+        return nonce + "." + String.valueOf(Hex.encode(perCallMac(nonce)));
+    }
+
+    @Benchmark
+    public String generateWithEngine() {
+        String nonce = UUID.randomUUID().toString();
+        return nonce + "." + String.valueOf(Hex.encode(engine.calc(KEY_VERSION, key, userID, nonce.getBytes())));
+    }
+
+    @Benchmark
+    public boolean validatePerCallMac() throws Exception {
+        String[] parts = token.split("\\.");
+        return MessageDigest.isEqual(Hex.decode(parts[1]), perCallMac(parts[0]));
+    }
+
+    @Benchmark
+    public boolean validateWithEngine() {
+        String[] parts = token.split("\\.");
+        return MessageDigest.isEqual(Hex.decode(parts[1]),
+            engine.calc(KEY_VERSION, key, userID, parts[0].getBytes()));
+    }
+
+    /**
+     * Previous approach, provider lookup and key setup on every call.
+     */
+    private byte[] perCallMac(String nonce) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        mac.update(userID);
+        return mac.doFinal(nonce.getBytes());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CsrfHmacBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
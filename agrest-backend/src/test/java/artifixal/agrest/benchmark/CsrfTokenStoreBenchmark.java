@@ -0,0 +1,85 @@
+package artifixal.agrest.benchmark;
+
+import artifixal.agrest.services.csrf.CsrfTokenStore;
+import artifixal.agrest.services.csrf.InMemoryCsrfTokenStore;
+import artifixal.agrest.services.csrf.RedisCsrfTokenStore;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * Compares CSRF token store and consume round trip of in-memory and Redis stores. Redis variant needs server at
+ * {@code localhost:6379}, password can be passed in {@code REDIS_PASSWORD} environment variable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsrfTokenStoreBenchmark {
+
+    private final static Duration TTL = Duration.ofSeconds(180);
+
+    @Param({"memory", "redis"})
+    public String store;
+
+    private CsrfTokenStore tokenStore;
+    private LettuceConnectionFactory connectionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (store.equals("memory")) {
+            tokenStore = new InMemoryCsrfTokenStore(Duration.ofSeconds(1), 256);
+            return;
+        }
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration("localhost", 6379);
+        String password = System.getenv("REDIS_PASSWORD");
+        if (password != null)
+            config.setPassword(password);
+        connectionFactory = new LettuceConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        tokenStore = new RedisCsrfTokenStore(new ReactiveStringRedisTemplate(connectionFactory));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (connectionFactory != null)
+            connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public Boolean storeAndConsume() {
+        String token = UUID.randomUUID().toString();
+        return tokenStore.store(List.of(token), TTL)
+            .then(tokenStore.consume(token))
+            .block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CsrfTokenStoreBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
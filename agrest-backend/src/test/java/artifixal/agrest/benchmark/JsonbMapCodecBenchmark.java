@@ -0,0 +1,128 @@
+package artifixal.agrest.benchmark;
+
+import artifixal.agrest.entity.converter.JsonbMapCodec;
+import artifixal.agrest.services.crypto.DataKeyService;
+import artifixal.agrest.services.crypto.DataKeyService.DataKey;
+import artifixal.agrest.services.crypto.FieldEncryptionService;
+import io.r2dbc.postgresql.codec.Json;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.when;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Compares previous string based jsonb map conversion with streaming {@code JsonbMapCodec}. Plain variants measure
+ * serialization alone, encrypted ones the whole codec path. Reads parse from direct buffer, like values coming from
+ * the driver. Runner adds GC profiler, so allocation per operation is reported next to throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonbMapCodecBenchmark {
+
+    /**
+     * Typical target has few headers, large map stands for exported browser cookie jar.
+     */
+    @Param({"4", "256"})
+    public int entries;
+
+    private JsonMapper mapper;
+    private JsonbMapCodec codec;
+    private Map<String, String> map;
+    private ByteBuffer plainBuffer;
+    private ByteBuffer encryptedBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = JsonMapper.builder()
+            .build();
+        DataKeyService dataKeyService = Mockito.mock(DataKeyService.class);
+        DataKey key = new DataKey(1, new SecretKeySpec(new byte[32], "AES"));
+        when(dataKeyService.getActiveKey(FieldEncryptionService.TARGETS_SCOPE)).thenReturn(key);
+        when(dataKeyService.getKey(1)).thenReturn(key);
+        codec = new JsonbMapCodec(mapper, new FieldEncryptionService(dataKeyService));
+
+        map = new HashMap<>();
+        for (int i = 0; i < entries; i++)
+            map.put("X-Header-" + i,
+                "value-" + i + "-ZXlKaGJHY2lPaUpJVXpJMU5pSjkuZXlKemRXSWlPaUl4TWpNME5UWTNPRGt3SW4w");
+        plainBuffer = toDirectBuffer(codec.serializePlain(map));
+        encryptedBuffer = toDirectBuffer(codec.write(map).asArray());
+    }
+
+    private ByteBuffer toDirectBuffer(byte[] bytes) {
+        return ByteBuffer.allocateDirect(bytes.length)
+            .put(bytes)
+            .flip();
+    }
+
+    @Benchmark
+    public Json writeStringPlain() {
+        return Json.of(mapper.writeValueAsString(map));
+    }
+
+    @Benchmark
+    public Json writeStreamingPlain() {
+        return Json.of(codec.serializePlain(map));
+    }
+
+    @Benchmark
+    public Json writeStreamingEncrypted() {
+        return codec.write(map);
+    }
+
+    @Benchmark
+    public Map<String, String> readStringPlain() {
+        Json json = Json.of(plainBuffer.duplicate());
+        return mapper.readValue(json.asString(), new TypeReference<Map<String, String>>() {
+        });
+    }
+
+    @Benchmark
+    public Map<String, String> readArrayPlain() {
+        Json json = Json.of(plainBuffer.duplicate());
+        return mapper.readValue(json.asArray(), Map.class);
+    }
+
+    @Benchmark
+    public Map<String, String> readStreamingPlain() {
+        return codec.read(Json.of(plainBuffer.duplicate()));
+    }
+
+    @Benchmark
+    public Map<String, String> readStreamingEncrypted() {
+        return codec.read(Json.of(encryptedBuffer.duplicate()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JsonbMapCodecBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build())
+            .run();
+    }
+}
@@ -0,0 +1,117 @@
+package artifixal.agrest.benchmark;
+
+import artifixal.agrest.auth.UserRole;
+import artifixal.agrest.dto.vault.KeyPairDTO;
+import artifixal.agrest.dto.vault.SecureSecret;
+import artifixal.agrest.entity.User;
+import artifixal.agrest.services.VaultService;
+import artifixal.agrest.token.paseto.PasetoService;
+import artifixal.agrest.token.paseto.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.when;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.Authentication;
+import org.springframework.vault.support.Versioned;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compares verifying PASETO access token on every request with serving it from {@code VerifiedTokenCache}. Each
+ * invocation authenticates next token of simulated active users round robin.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    /**
+     * Active users, each holding single access token.
+     */
+    @Param({"100", "1000", "10000"})
+    public int userCount;
+
+    private PasetoService pasetoService;
+    private VerifiedTokenCache tokenCache;
+    private String[] tokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        VaultService vaultService = Mockito.mock(VaultService.class);
+        when(vaultService.getPasetoKeys()).thenReturn(Mono.just(Versioned.create(createKeyPair())));
+        pasetoService = new PasetoService(vaultService, 1, Duration.ofMinutes(5));
+        pasetoService.loadKeys()
+            .block();
+        tokenCache = new VerifiedTokenCache(userCount * 2, new SimpleMeterRegistry());
+
+        tokens = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("user" + i + "@bench.localhost", new byte[]{0}, UserRole.USER, LocalDateTime.MAX,
+                true, false, false);
+            user.setId(UUID.randomUUID());
+            tokens[i] = pasetoService.createAccessTokenForUser(user);
+        }
+        // Measure steady state, every user already made a request
+        for (String token : tokens)
+            tokenCache.getOrValidate(token, pasetoService::validateToken)
+                .block();
+    }
+
+    @Benchmark
+    public Authentication verifyPerRequest() {
+        return pasetoService.validateToken(nextToken())
+            .block();
+    }
+
+    @Benchmark
+    public Authentication cached() {
+        return tokenCache.getOrValidate(nextToken(), pasetoService::validateToken)
+            .block();
+    }
+
+    private String nextToken() {
+        next = (next + 1) % tokens.length;
+        return tokens[next];
+    }
+
+    private KeyPairDTO createKeyPair() throws Exception {
+        final KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519")
+            .generateKeyPair();
+        SecureSecret pubKey = new SecureSecret(keyPair.getPublic().getEncoded());
+        SecureSecret prvKey = new SecureSecret(keyPair.getPrivate().getEncoded());
+        return new KeyPairDTO(pubKey, prvKey);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TokenVerificationBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
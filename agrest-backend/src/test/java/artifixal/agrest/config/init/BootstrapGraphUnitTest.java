@@ -0,0 +1,93 @@
+package artifixal.agrest.config.init;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of the {@code BootstrapGraph}.
+ */
+public class BootstrapGraphUnitTest {
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void shouldRunStepAfterDependenciesAndIndependentOnesInParallel() {
+        BootstrapGraph graph = new BootstrapGraph()
+            .step("slow", () -> Mono.delay(Duration.ofMillis(100))
+                .doOnNext((ignored) -> events.add("slow")))
+            .step("dependant", () -> record("dependant"), "slow")
+            .step("independent", () -> record("independent"));
+
+        // Act
+        graph.run()
+            .block(Duration.ofSeconds(1));
+
+        // Assert
+        assertEquals(List.of("independent", "slow", "dependant"), events);
+    }
+
+    @Test
+    public void shouldRunSharedDependencyOnce() {
+        AtomicInteger runs = new AtomicInteger();
+        BootstrapGraph graph = new BootstrapGraph()
+            .step("shared", () -> Mono.fromRunnable(runs::incrementAndGet))
+            .step("first", () -> record("first"), "shared")
+            .step("second", () -> record("second"), "shared");
+
+        // Act
+        graph.run()
+            .block(Duration.ofSeconds(1));
+
+        // Assert
+        assertEquals(1, runs.get());
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    public void shouldFailWithRequiredStepErrorAndSkipDependants() {
+        IllegalStateException error = new IllegalStateException("Vault unavailable");
+        BootstrapGraph graph = new BootstrapGraph()
+            .step("failing", () -> Mono.error(error))
+            .step("dependant", () -> record("dependant"), "failing");
+
+        // Act & Assert
+        StepVerifier.create(graph.run())
+            .expectErrorMatches((err) -> err == error)
+            .verify(Duration.ofSeconds(1));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void shouldContinueAfterOptionalStepFailure() {
+        BootstrapGraph graph = new BootstrapGraph()
+            .optionalStep("failing", () -> Mono.error(new IllegalStateException("Redis unavailable")))
+            .step("dependant", () -> record("dependant"), "failing");
+
+        // Act & Assert
+        StepVerifier.create(graph.run())
+            .verifyComplete();
+        assertEquals(List.of("dependant"), events);
+    }
+
+    @Test
+    public void shouldRejectDuplicatedOrUnknownSteps() {
+        BootstrapGraph graph = new BootstrapGraph()
+            .step("step", Mono::empty);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> graph.step("step", Mono::empty));
+        assertThrows(IllegalArgumentException.class, () -> graph.step("other", Mono::empty, "missing"));
+    }
+
+    private Mono<Void> record(String event) {
+        return Mono.fromRunnable(() -> events.add(event));
+    }
+}
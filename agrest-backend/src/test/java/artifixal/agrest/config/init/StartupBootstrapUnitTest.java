@@ -0,0 +1,76 @@
+package artifixal.agrest.config.init;
+
+import artifixal.agrest.services.PasswordHashService;
+import artifixal.agrest.services.UserService;
+import artifixal.agrest.services.VaultService;
+import artifixal.agrest.services.crypto.DataKeyService;
+import artifixal.agrest.token.paseto.PasetoService;
+import artifixal.agrest.token.revocation.RefreshTokenRevocationService;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests of the {@code StartupBootstrap}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class StartupBootstrapUnitTest {
+
+    @Mock
+    private VaultInitRunner vaultInit;
+    @Mock
+    private DefaultUserInit defaultUserInit;
+    @Mock
+    private VaultService vaultService;
+    @Mock
+    private PasetoService pasetoService;
+    @Mock
+    private PasswordHashService hashService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private DataKeyService dataKeyService;
+    @Mock
+    private RefreshTokenRevocationService revocationService;
+    @Mock
+    private DatabaseClient databaseClient;
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private StartupBootstrap bootstrap;
+
+    @BeforeEach
+    public void setUp() {
+        bootstrap = new StartupBootstrap(vaultInit, defaultUserInit, vaultService, pasetoService, hashService,
+            userService, dataKeyService, revocationService, databaseClient, redisTemplate);
+        ReflectionTestUtils.setField(bootstrap, "timeout", Duration.ofMillis(200));
+        when(hashService.start()).thenReturn(Mono.empty());
+        when(revocationService.loadFilter()).thenReturn(Mono.empty());
+    }
+
+    @Test
+    public void shouldFailStartupAndCancelStepsAfterTimeout() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        // Unreachable Vault
+        when(vaultInit.initVault()).thenReturn(Mono.<Void>never()
+            .doOnCancel(() -> cancelled.set(true)));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, bootstrap::afterSingletonsInstantiated);
+        assertTrue(cancelled.get());
+    }
+}
@@ -1,6 +1,7 @@
 package artifixal.agrest.controllers;
 
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
@@ -14,4 +15,12 @@ public class AuthenticatedUserTestController {
     public Mono<String> onlyForAuthorized() {
         return Mono.just("ok");
     }
+
+    /**
+     * Mutating endpoint, guarded by CSRF filter.
+     */
+    @PostMapping("/auth/csrfTest")
+    public Mono<String> csrfProtected() {
+        return Mono.just("ok");
+    }
 }
@@ -0,0 +1,137 @@
+package artifixal.agrest.controllers;
+
+import artifixal.agrest.auth.WithMockToken;
+import artifixal.agrest.common.IntegrationTest;
+import artifixal.agrest.dto.CsrfTokensDTO;
+import artifixal.agrest.services.CsrfService;
+import java.time.Duration;
+import java.util.HashSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient.RequestBodySpec;
+
+/**
+ * Integration tests of CSRF token issuance and {@code PerRequestCsrfWebFilter}.
+ */
+public class CsrfControllerIntegrationTest extends IntegrationTest {
+
+    private final static String PROTECTED_PATH = "/auth/csrfTest";
+
+    @Test
+    @WithMockToken
+    public void shouldIssueBatchOfTokens() {
+        CsrfTokensDTO batch = http.get()
+            .uri("/v1/csrf/batch?count=5")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            // Batch tokens don't match cookie, so it's removed
+            .expectCookie()
+            .maxAge(CsrfService.CSRF_COOKIE, Duration.ZERO)
+            .expectBody(CsrfTokensDTO.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(5, batch.tokens().size());
+        assertEquals(5, new HashSet<>(batch.tokens()).size());
+        assertEquals(180, batch.ttl());
+    }
+
+    @Test
+    @WithMockToken
+    public void shouldRejectBatchOverLimit() {
+        http.get()
+            .uri("/v1/csrf/batch?count=" + (CsrfService.MAX_BATCH_SIZE + 1))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+        http.get()
+            .uri("/v1/csrf/batch?count=0")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    @WithMockToken
+    public void shouldAcceptEachBatchTokenSentOnlyInHeader() {
+        CsrfTokensDTO batch = getBatch(2);
+
+        for (String token : batch.tokens())
+            postProtected()
+                .header(CsrfService.CSRF_HEADER, token)
+                .exchange()
+                .expectStatus()
+                .isOk();
+    }
+
+    @Test
+    @WithMockToken
+    public void shouldRejectReusedToken() {
+        String token = getBatch(1).tokens()
+            .getFirst();
+
+        postProtected()
+            .header(CsrfService.CSRF_HEADER, token)
+            .exchange()
+            .expectStatus()
+            .isOk();
+        postProtected()
+            .header(CsrfService.CSRF_HEADER, token)
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @WithMockToken
+    public void shouldRejectMissingToken() {
+        postProtected()
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @WithMockToken
+    public void shouldRejectHeaderNotMatchingCookie() {
+        CsrfTokensDTO batch = getBatch(2);
+
+        postProtected()
+            .header(CsrfService.CSRF_HEADER, batch.tokens().get(0))
+            .cookie(CsrfService.CSRF_COOKIE, batch.tokens().get(1))
+            .exchange()
+            .expectStatus()
+            .isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @WithMockToken
+    public void shouldAcceptCookieTokenEchoedInHeader() {
+        String token = getCsrfToken().getValue();
+
+        postProtected()
+            .header(CsrfService.CSRF_HEADER, token)
+            .cookie(CsrfService.CSRF_COOKIE, token)
+            .exchange()
+            .expectStatus()
+            .isOk();
+    }
+
+    private CsrfTokensDTO getBatch(int count) {
+        return http.get()
+            .uri("/v1/csrf/batch?count=" + count)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CsrfTokensDTO.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    private RequestBodySpec postProtected() {
+        return http.post()
+            .uri(PROTECTED_PATH);
+    }
+}
@@ -4,6 +4,7 @@ import artifixal.agrest.auth.UserRole;
 import artifixal.agrest.auth.WithMockToken;
 import artifixal.agrest.common.IntegrationTest;
 import artifixal.agrest.dto.TargetEntryDTO;
+import artifixal.agrest.dto.target.TargetChangeDTO;
 import artifixal.agrest.dto.target.TargetDTO;
 import artifixal.agrest.entity.Tag;
 import artifixal.agrest.repository.TagRepository;
@@ -12,13 +13,16 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.web.reactive.function.BodyInserters;
 import artifixal.agrest.repository.TargetBasicRepository;
 import artifixal.agrest.services.CsrfService;
 import artifixal.agrest.services.PageService;
 import artifixal.agrest.services.TargetService;
+import artifixal.agrest.stream.TargetChangeFeed;
 import com.flipkart.zjsonpatch.Jackson3JsonDiff;
 import java.time.Duration;
 import java.util.List;
@@ -26,9 +30,13 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import reactor.test.StepVerifier;
 import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
 /**
  * Integration tests for TargetController.
@@ -44,6 +52,9 @@ public class TargetControllerIntegrationTest extends IntegrationTest {
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private TargetChangeFeed changeFeed;
+
     @Test
     @WithMockToken(role = "ROLE_USER")
     public void addTarget() {
@@ -150,8 +161,10 @@ public class TargetControllerIntegrationTest extends IntegrationTest {
         assertEquals(updatedData.name(), updatedTarget.getName());
         assertEquals(updatedData.url(), updatedTarget.getUrl());
         assertEquals(updatedData.description().get(), updatedTarget.getDescription());
-        assertEquals(updatedData.headers().get(), updatedTarget.getHeaders());
-        assertEquals(updatedData.cookies().get(), updatedTarget.getCookies());
+        assertEquals(updatedData.headers().get(), updatedTarget.getHeaders()
+            .get());
+        assertEquals(updatedData.cookies().get(), updatedTarget.getCookies()
+            .get());
         assertNotNull(updatedTarget.getEditorID());
         assertNotNull(updatedTarget.getEdited());
 
@@ -196,6 +209,98 @@ public class TargetControllerIntegrationTest extends IntegrationTest {
         testTargetEdit(original, update, HttpStatus.FORBIDDEN, false);
     }
 
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void getTargetOnlyRequestedFields() {
+        final TargetDTO target = new TargetDTO("TargetProjected", "https://projected.target.com",
+            Optional.of("Not requested"), Optional.of(List.of("projected")), Optional.of(Map.of("version", "v1")),
+            Optional.empty());
+        Long targetID = doAs(targetService.addTarget(target, Optional.empty()), UserRole.ADMIN)
+            .block();
+
+        var response = http.get()
+            .uri("/v1/targets/" + targetID + "?fields=name,url")
+            .exchangeSuccessfully()
+            .expectBody()
+            .returnResult();
+
+        JsonNode body = objectMapper.readTree(response.getResponseBody());
+        assertEquals(target.name(), body.get("name").asString());
+        assertEquals(target.url(), body.get("url").asString());
+        assertTrue(body.has("id"));
+        assertTrue(!body.has("description") && !body.has("tags") && !body.has("headers"),
+            "Unrequested fields serialized");
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void getTargetAsCbor() {
+        testGetTargetInBinaryFormat(MediaType.APPLICATION_CBOR, CBORMapper.builder()
+            .build());
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void getTargetAsSmile() {
+        testGetTargetInBinaryFormat(MediaType.parseMediaType("application/x-jackson-smile"), SmileMapper.builder()
+            .build());
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void shouldNotGetTargetUnknownField() {
+        http.get()
+            .uri("/v1/targets/1?fields=name,password")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_USER")
+    public void getSwagger() {
+        final TargetDTO target = new TargetDTO("TargetWithSwagger", "https://swagger.target.com", Optional.empty(),
+            Optional.empty(), Optional.empty(), Optional.empty());
+        Long targetID = testTargetEdit(target, target, HttpStatus.OK, true);
+
+        var response = http.get()
+            .uri("/v1/targets/" + targetID + "/swagger")
+            .exchangeSuccessfully()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+            .expectBody()
+            .returnResult();
+        String etag = response.getResponseHeaders().getETag();
+        assertNotNull(etag);
+        JsonNode swagger = objectMapper.readTree(response.getResponseBody());
+        assertTrue(swagger.has("paths"));
+
+        // Known document is not sent again
+        http.get()
+            .uri("/v1/targets/" + targetID + "/swagger")
+            .header(HttpHeaders.IF_NONE_MATCH, etag)
+            .exchange()
+            .expectStatus()
+            .isNotModified()
+            .expectBody()
+            .isEmpty();
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void shouldNotGetMissingSwagger() {
+        final TargetDTO target = new TargetDTO("TargetNoSwagger", "https://noswagger.target.com", Optional.empty(),
+            Optional.empty(), Optional.empty(), Optional.empty());
+        Long targetID = doAs(targetService.addTarget(target, Optional.empty()), UserRole.ADMIN)
+            .block();
+
+        http.get()
+            .uri("/v1/targets/" + targetID + "/swagger")
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
     @Test
     @WithMockToken(role = "ROLE_ANALYST")
     public void getTargetPage() {
@@ -294,6 +399,138 @@ public class TargetControllerIntegrationTest extends IntegrationTest {
             .verify(Duration.ofSeconds(5));
     }
 
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void getTargetPageNdjson() {
+        final TargetDTO target = new TargetDTO("NdjsonTarget", "https://ndjson.target.com", Optional.empty(),
+            Optional.empty(), Optional.empty(), Optional.empty());
+        doAs(targetService.addTarget(target, Optional.empty()), UserRole.ADMIN)
+            .block();
+        long existingItems = targetRepo.count()
+            .block();
+
+        var response = http.get()
+            .uri("/v1/targets?size=100")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchangeSuccessfully()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(TargetEntryDTO.class);
+
+        StepVerifier.create(response.getResponseBody())
+            .expectNextCount(Math.min(existingItems, 100))
+            .verifyComplete();
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void getTargetPageBatched() {
+        final TargetDTO target = new TargetDTO("BatchedTarget", "https://batched.target.com", Optional.empty(),
+            Optional.empty(), Optional.empty(), Optional.empty());
+        doAs(targetService.addTarget(target, Optional.empty()), UserRole.ADMIN)
+            .block();
+        long existingItems = targetRepo.count()
+            .block();
+
+        var response = http.get()
+            .uri("/v1/targets?size=100&batched=true")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchangeSuccessfully()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+            .returnResult(TargetEntryDTO[].class);
+
+        StepVerifier.create(response.getResponseBody()
+            .map((batch) -> batch.length)
+            .reduce(0, Integer::sum))
+            .expectNext((int) Math.min(existingItems, 100))
+            .verifyComplete();
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void shouldResumeTargetPageAfterLastEventID() {
+        final TargetDTO[] entries = {
+            new TargetDTO("Resume1", "https://resume1.com", Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty()),
+            new TargetDTO("Resume2", "https://resume2.com", Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty())
+        };
+        var task = targetService.addTarget(entries[0], Optional.empty())
+            .then(targetService.addTarget(entries[1], Optional.empty()));
+        doAs(task, UserRole.ADMIN)
+            .block();
+
+        List<ServerSentEvent<TargetEntryDTO>> fullPage = fetchTargetEvents("/v1/targets?query=resume");
+        assertEquals(entries.length, fullPage.size());
+
+        // Reconnect after the first entry
+        var response = http.get()
+            .uri("/v1/targets?query=resume")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .header("Last-Event-ID", fullPage.getFirst().id())
+            .exchangeSuccessfully()
+            .expectHeader()
+            .doesNotExist(PageService.TOTAL_COUNT)
+            .returnResult(TargetEntryDTO.class);
+
+        StepVerifier.create(response.getResponseBody())
+            .expectNextMatches((entry) -> entry.id() == fullPage.get(1).data().id())
+            .verifyComplete();
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void shouldResumeTargetPageAfterDeletedEntry() {
+        final TargetDTO[] entries = {
+            new TargetDTO("Reconnect1", "https://reconnect1.com", Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty()),
+            new TargetDTO("Reconnect2", "https://reconnect2.com", Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty())
+        };
+        var task = targetService.addTarget(entries[0], Optional.empty())
+            .then(targetService.addTarget(entries[1], Optional.empty()));
+        doAs(task, UserRole.ADMIN)
+            .block();
+        // Name isn't requested, but position still carries it
+        List<ServerSentEvent<TargetEntryDTO>> fullPage = fetchTargetEvents("/v1/targets?query=reconnect&fields=url");
+        assertEquals(entries.length, fullPage.size());
+        assertTrue(fullPage.stream()
+            .allMatch((event) -> event.data().name() == null), "Unrequested name serialized");
+
+        // Act
+        targetRepo.deleteById(fullPage.getFirst().data().id())
+            .block();
+        List<ServerSentEvent<TargetEntryDTO>> resumed = fetchTargetEvents("/v1/targets?query=reconnect&fields=url",
+            fullPage.getFirst().id());
+
+        // Assert
+        assertEquals(1, resumed.size());
+        assertEquals(fullPage.get(1).data().id(), resumed.getFirst().data().id());
+    }
+
+    @Test
+    @WithMockToken(role = "ROLE_ANALYST")
+    public void shouldNotifyAboutTargetChanges() {
+        final TargetDTO target = new TargetDTO("ChangedTarget", "https://changed.target.com", Optional.empty(),
+            Optional.empty(), Optional.empty(), Optional.empty());
+        var changes = http.get()
+            .uri("/v1/targets/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchangeSuccessfully()
+            .returnResult(TargetChangeDTO[].class)
+            .getResponseBody();
+
+        StepVerifier.create(changes.flatMapIterable(List::of))
+            // Change made before LISTEN would never be notified
+            .then(() -> changeFeed.ready()
+                .then(doAs(targetService.addTarget(target, Optional.empty()), UserRole.ADMIN))
+                .block(Duration.ofSeconds(5)))
+            .expectNextMatches((change) -> change.operation().equals("INSERT"))
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+    }
+
     @Test
     @WithMockToken(role = "ROLE_ANALYST")
     public void shoulNotGetPageIllegalPageSize() {
@@ -305,6 +542,58 @@ public class TargetControllerIntegrationTest extends IntegrationTest {
             .isBadRequest();
     }
 
+    private List<ServerSentEvent<TargetEntryDTO>> fetchTargetEvents(String uri) {
+        return fetchTargetEvents(uri, null);
+    }
+
+    private List<ServerSentEvent<TargetEntryDTO>> fetchTargetEvents(String uri, String lastEventID) {
+        return http.get()
+            .uri(uri)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .headers((headers) -> {
+                if (lastEventID != null)
+                    headers.set("Last-Event-ID", lastEventID);
+            })
+            .exchangeSuccessfully()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<TargetEntryDTO>>() {})
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Binary response has to carry the same values, formatted the same way, as JSON one.
+     */
+    private void testGetTargetInBinaryFormat(MediaType format, ObjectMapper formatMapper) {
+        final TargetDTO target = new TargetDTO("Target" + format.getSubtype(), "https://binary.target.com",
+            Optional.of("Binary format"), Optional.empty(), Optional.of(Map.of("version", "v1")), Optional.empty());
+        Long targetID = doAs(targetService.addTarget(target, Optional.empty()), UserRole.ADMIN)
+            .block();
+        byte[] json = http.get()
+            .uri("/v1/targets/" + targetID)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchangeSuccessfully()
+            .expectBody()
+            .returnResult()
+            .getResponseBody();
+
+        byte[] binary = http.get()
+            .uri("/v1/targets/" + targetID)
+            .accept(format)
+            .exchangeSuccessfully()
+            .expectHeader()
+            .contentType(format)
+            .expectBody()
+            .returnResult()
+            .getResponseBody();
+
+        JsonNode expected = objectMapper.readTree(json);
+        JsonNode body = formatMapper.readTree(binary);
+        assertEquals(target.name(), body.get("name").asString());
+        assertEquals(expected.get("headers"), body.get("headers"));
+        assertEquals(expected.get("created").asString(), body.get("created").asString());
+    }
+
     private void testTargetAddWithRepoCountChecks(TargetDTO targetData, Optional<ClassPathResource> swagger,
         HttpStatus expectedStatus, Class responseClass, long expectedChangeTarget, long expectedChangeTags,
         boolean useCsrfToken) {
@@ -0,0 +1,30 @@
+package artifixal.agrest.dto.user;
+
+import artifixal.agrest.auth.UserRole;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@code UserSnapshot}.
+ */
+public class UserSnapshotUnitTest {
+
+    private final static int ROLE = UserRole.USER.getRoleID();
+
+    @Test
+    public void shouldBeActiveWhenEnabledUnlockedAndNotExpired() {
+        assertTrue(new UserSnapshot(UUID.randomUUID(), ROLE, true, false, LocalDateTime.MAX).isActive());
+        assertTrue(new UserSnapshot(UUID.randomUUID(), ROLE, true, false, null).isActive());
+    }
+
+    @Test
+    public void shouldNotBeActiveWhenDisabledLockedOrExpired() {
+        assertFalse(new UserSnapshot(UUID.randomUUID(), ROLE, false, false, LocalDateTime.MAX).isActive());
+        assertFalse(new UserSnapshot(UUID.randomUUID(), ROLE, true, true, LocalDateTime.MAX).isActive());
+        assertFalse(new UserSnapshot(UUID.randomUUID(), ROLE, true, false, LocalDateTime.now().minusSeconds(1))
+            .isActive());
+    }
+}
@@ -0,0 +1,97 @@
+package artifixal.agrest.entity.converter;
+
+import artifixal.agrest.entity.EncryptedMap;
+import artifixal.agrest.services.crypto.DataKeyService;
+import artifixal.agrest.services.crypto.DataKeyService.DataKey;
+import artifixal.agrest.services.crypto.FieldEncryptionService;
+import io.r2dbc.postgresql.codec.Json;
+import java.util.HashMap;
+import java.util.Map;
+import javax.crypto.spec.SecretKeySpec;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests of the {@code JsonbMapCodec}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class JsonbMapCodecUnitTest {
+
+    private final static Map<String, String> HEADERS = Map.of("Authorization", "Bearer secret",
+        "X-Unicode", "zażółć \"gęślą\"");
+
+    @Mock
+    private DataKeyService dataKeyService;
+
+    private JsonbMapCodec codec;
+
+    @BeforeEach
+    public void setUp() {
+        DataKey key = new DataKey(7, new SecretKeySpec(new byte[32], "AES"));
+        when(dataKeyService.getActiveKey(FieldEncryptionService.TARGETS_SCOPE)).thenReturn(key);
+        when(dataKeyService.getKey(7)).thenReturn(key);
+        codec = new JsonbMapCodec(JsonMapper.builder().build(), new FieldEncryptionService(dataKeyService));
+    }
+
+    @Test
+    public void shouldReadWrittenMap() {
+        Json json = codec.write(HEADERS);
+
+        assertFalse(json.asString().contains("secret"));
+        assertEquals(HEADERS, codec.read(json));
+    }
+
+    @Test
+    public void shouldReadEnvelopeFormattedByJsonb() {
+        String stored = codec.write(HEADERS).asString();
+        // Postgres outputs jsonb with spaces and sorted keys
+        String data = stored.substring(stored.indexOf("\"d\":") + 4, stored.length() - 2);
+        String jsonb = "{\"$enc\": {\"d\": " + data + ", \"k\": 7}}";
+
+        assertEquals(HEADERS, codec.read(Json.of(jsonb)));
+    }
+
+    @Test
+    public void shouldReadPlainMap() {
+        Map<String, String> withEnvelopeKey = new HashMap<>();
+        withEnvelopeKey.put("$enc", "header");
+        withEnvelopeKey.put("other", null);
+
+        assertEquals(HEADERS, codec.read(Json.of(codec.serializePlain(HEADERS))));
+        assertEquals(withEnvelopeKey, codec.read(Json.of("{\"$enc\": \"header\", \"other\": null}")));
+        assertEquals(Map.of(), codec.read(Json.of("{}")));
+        assertEquals(Map.of(), codec.read(Json.of("")));
+    }
+
+    @Test
+    public void shouldDecryptStoredMapOnlyOnAccess() {
+        Json stored = codec.write(HEADERS);
+
+        // Act
+        EncryptedMap map = new JsonbToEncryptedMapConverter(codec).convert(stored);
+
+        // Assert
+        assertFalse(map.isDecrypted());
+        verify(dataKeyService, never()).getKey(7);
+        assertEquals(HEADERS, map.get());
+        assertTrue(map.isDecrypted());
+    }
+
+    @Test
+    public void shouldWriteNullAsEmptyMap() {
+        assertEquals(Map.of(), codec.read(codec.write(null)));
+    }
+}
@@ -0,0 +1,105 @@
+package artifixal.agrest.memory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@code SecretBuffer} and {@code SecretBufferPool}.
+ */
+public class SecretBufferUnitTest {
+
+    private SecretBufferPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new SecretBufferPool(256, 4);
+    }
+
+    @Test
+    public void shouldEncodeUtf8() {
+        String password = "Passwordπ1234567890ą😀";
+        SecretBuffer buffer = pool.acquire(password.length() * 3);
+
+        buffer.appendUtf8(password.toCharArray(), 0, password.length());
+
+        assertArrayEquals(password.getBytes(StandardCharsets.UTF_8), buffer.toArray());
+    }
+
+    @Test
+    public void shouldReplaceUnpairedSurrogate() {
+        char[] chars = {'a', '\uD83D', 'b'};
+        SecretBuffer buffer = pool.acquire(chars.length * 3);
+
+        buffer.appendUtf8(chars, 0, chars.length);
+
+        assertArrayEquals(new byte[]{'a', '?', 'b'}, buffer.toArray());
+    }
+
+    @Test
+    public void shouldReuseReleasedSegment() {
+        SecretBuffer buffer = pool.acquire(20);
+        buffer.appendUtf8("secret".toCharArray(), 0, 6);
+        buffer.close();
+
+        // Same size class
+        SecretBuffer reused = pool.acquire(30);
+
+        assertEquals(32, reused.capacity());
+        assertEquals(0, reused.length());
+        reused.apply((value) -> {
+            assertEquals(0, value.length);
+            return null;
+        });
+    }
+
+    @Test
+    public void shouldRejectAccessAfterClose() {
+        SecretBuffer buffer = pool.acquire(16);
+        buffer.appendUtf8("secret".toCharArray(), 0, 6);
+
+        buffer.close();
+        buffer.close();
+
+        assertArrayEquals(new byte[6], buffer.toArray());
+        assertThrows(IllegalStateException.class, () -> buffer.apply((value) -> value));
+        assertThrows(IllegalStateException.class, () -> buffer.copy());
+    }
+
+    @Test
+    public void shouldZeroHeapCopyAfterApply() {
+        SecretBuffer buffer = pool.acquire(16);
+        buffer.appendUtf8("secret".toCharArray(), 0, 6);
+
+        byte[] leaked = buffer.apply((value) -> value);
+
+        assertArrayEquals(new byte[6], leaked);
+    }
+
+    @Test
+    public void shouldGrowStreamAndReleasePreviousBuffer() {
+        byte[] head = "0123456789".getBytes(StandardCharsets.UTF_8);
+        byte[] tail = new byte[40];
+        Arrays.fill(tail, (byte) 'x');
+        SecretBufferOutputStream out = new SecretBufferOutputStream(pool, 16);
+        out.write(head, 0, head.length);
+        SecretBuffer previous = out.buffer();
+
+        // Act
+        out.write(tail, 0, tail.length);
+
+        // Assert
+        assertEquals(64, out.buffer()
+            .capacity());
+        assertArrayEquals(("0123456789" + "x".repeat(40)).getBytes(StandardCharsets.UTF_8), out.buffer()
+            .toArray());
+        // Previous buffer was zeroed and returned to pool
+        assertArrayEquals(new byte[head.length], previous.toArray());
+        assertThrows(IllegalStateException.class, () -> previous.copy());
+        out.close();
+    }
+}
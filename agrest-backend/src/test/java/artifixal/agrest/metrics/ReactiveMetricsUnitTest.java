@@ -0,0 +1,96 @@
+package artifixal.agrest.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.filter.reactive.ServerWebExchangeContextFilter;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests of the {@code ReactiveMetrics}.
+ */
+public class ReactiveMetricsUnitTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ReactiveMetrics metrics = new ReactiveMetrics(registry);
+
+    @Test
+    public void shouldTimeEachSubscriptionWithOutcome() {
+        Mono<String> timed = metrics.timed(ReactiveMetrics.SERVICE, "Test.ok", Mono.just("ok"));
+        Mono<String> failing = metrics.timed(ReactiveMetrics.SERVICE, "Test.fail",
+            Mono.error(new IllegalStateException()));
+
+        // Act
+        timed.block();
+        timed.block();
+        assertThrows(IllegalStateException.class, failing::block);
+
+        // Assert
+        assertEquals(2, registry.get(ReactiveMetrics.SERVICE)
+            .tag("endpoint", ReactiveMetrics.NO_ENDPOINT)
+            .tag("method", "Test.ok")
+            .tag("outcome", "SUCCESS")
+            .timer()
+            .count());
+        assertEquals(1, registry.get(ReactiveMetrics.SERVICE)
+            .tag("method", "Test.fail")
+            .tag("outcome", "ERROR")
+            .timer()
+            .count());
+    }
+
+    @Test
+    public void shouldTagTimerWithRoutePatternOfRequest() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/v1/targets/5"));
+        exchange.getAttributes()
+            .put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PathPatternParser.defaultInstance
+                .parse("/v1/targets/{id}"));
+
+        // Act
+        metrics.timed(ReactiveMetrics.SERVICE, "Test.request", Mono.just("ok"))
+            .contextWrite((context) -> context.put(ServerWebExchangeContextFilter.EXCHANGE_CONTEXT_ATTRIBUTE,
+                exchange))
+            .block();
+
+        // Assert
+        assertEquals(1, registry.get(ReactiveMetrics.SERVICE)
+            .tag("endpoint", "/v1/targets/{id}")
+            .tag("method", "Test.request")
+            .timer()
+            .count());
+    }
+
+    @Test
+    public void shouldCountStreamedItemsAndOpenStreams() {
+        Sinks.Many<Integer> sink = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<Integer> stream = metrics.stream("/test", "sse", sink.asFlux());
+
+        // Act
+        var disposable = stream.subscribe();
+        sink.tryEmitNext(1);
+        sink.tryEmitNext(2);
+        double openDuringStream = registry.get("agrest.sse.active")
+            .tag("endpoint", "/test")
+            .gauge()
+            .value();
+        disposable.dispose();
+
+        // Assert
+        assertEquals(1, openDuringStream);
+        assertEquals(0, registry.get("agrest.sse.active")
+            .tag("endpoint", "/test")
+            .gauge()
+            .value());
+        assertEquals(2, registry.get("agrest.sse.events")
+            .tag("format", "sse")
+            .counter()
+            .count());
+    }
+}
@@ -0,0 +1,75 @@
+package artifixal.agrest.repository;
+
+import artifixal.agrest.auth.UserRole;
+import artifixal.agrest.common.IntegrationTest;
+import artifixal.agrest.dto.user.SecurePassword;
+import artifixal.agrest.dto.user.UserCreationDTO;
+import artifixal.agrest.entity.User;
+import artifixal.agrest.services.UserService;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests queries of the {@code UserRepository}.
+ */
+public class UserRepositoryIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void shouldReplaceUnchangedHash() {
+        User user = createUser("rehash@test.localhost");
+        final byte[] upgraded = "upgraded-hash".getBytes();
+
+        // Act
+        int updated = userRepository.updateHash(user.getId(), user.getHash(), upgraded)
+            .block();
+
+        // Assert
+        assertEquals(1, updated);
+        assertArrayEquals(upgraded, userRepository.findById(user.getId())
+            .block()
+            .getHash());
+    }
+
+    @Test
+    public void shouldNotOverwriteHashChangedMeanwhile() {
+        User user = createUser("rehashrace@test.localhost");
+        final byte[] changed = "changed-password-hash".getBytes();
+        final byte[] upgraded = "upgraded-old-password-hash".getBytes();
+        // Password change lands while rehash of the old one is computed
+        userRepository.updateHash(user.getId(), user.getHash(), changed)
+            .block();
+
+        // Act
+        int updated = userRepository.updateHash(user.getId(), user.getHash(), upgraded)
+            .block();
+
+        // Assert
+        assertEquals(0, updated);
+        assertArrayEquals(changed, userRepository.findById(user.getId())
+            .block()
+            .getHash());
+    }
+
+    private User createUser(String email) {
+        var user = UserCreationDTO.builder()
+            .email(email)
+            .password(new SecurePassword("!123drowssaP".getBytes()))
+            .role(UserRole.USER.getRoleID())
+            .enabled(true)
+            .expireDate(LocalDateTime.MAX)
+            .locked(false)
+            .forcedPasswordChange(false)
+            .build();
+        return doAs(userService.createUser(user), UserRole.ADMIN)
+            .block();
+    }
+}
@@ -0,0 +1,90 @@
+package artifixal.agrest.serializer;
+
+import artifixal.agrest.entity.LazyJson;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+/**
+ * Unit tests of the {@code LazyJsonSerializer}.
+ */
+public class LazyJsonSerializerUnitTest {
+
+    private final static String SWAGGER = "{\"openapi\":\"3.0.1\",\"paths\":{\"/users\":{}}}";
+
+    private final JsonMapper mapper = new JsonMapper();
+
+    @Test
+    public void shouldWriteRawBytesWithoutParsing() {
+        AtomicInteger parses = new AtomicInteger();
+        LazyJson<JsonNode> lazy = LazyJson.of(SWAGGER.getBytes(StandardCharsets.UTF_8), (bytes) -> {
+            parses.incrementAndGet();
+            return mapper.readTree(bytes);
+        });
+
+        // Act
+        String json = mapper.writeValueAsString(lazy);
+
+        // Assert
+        assertEquals(SWAGGER, json);
+        assertEquals(0, parses.get());
+        assertFalse(lazy.isParsed());
+    }
+
+    @Test
+    public void shouldCopyRawBytesToByteOutput() {
+        LazyJson<JsonNode> lazy = LazyJson.of(SWAGGER.getBytes(StandardCharsets.UTF_8),
+            (bytes) -> mapper.readTree(bytes));
+
+        // Act
+        byte[] json = mapper.writeValueAsBytes(List.of(lazy, lazy));
+
+        // Assert
+        assertEquals("[" + SWAGGER + "," + SWAGGER + "]", new String(json, StandardCharsets.UTF_8));
+        assertFalse(lazy.isParsed());
+    }
+
+    @Test
+    public void shouldParseOnceOnAccess() {
+        AtomicInteger parses = new AtomicInteger();
+        LazyJson<JsonNode> lazy = LazyJson.of(SWAGGER.getBytes(StandardCharsets.UTF_8), (bytes) -> {
+            parses.incrementAndGet();
+            return mapper.readTree(bytes);
+        });
+
+        // Act
+        JsonNode first = lazy.get();
+        JsonNode second = lazy.get();
+        String json = mapper.writeValueAsString(lazy);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, parses.get());
+        assertTrue(lazy.isParsed());
+        assertEquals("3.0.1", first.get("openapi").asString());
+        assertEquals(mapper.readTree(SWAGGER), mapper.readTree(json));
+    }
+
+    @Test
+    public void shouldParseForBinaryFormat() {
+        LazyJson<JsonNode> lazy = LazyJson.of(SWAGGER.getBytes(StandardCharsets.UTF_8),
+            (bytes) -> mapper.readTree(bytes));
+        CBORMapper cborMapper = CBORMapper.builder()
+            .build();
+
+        // Act
+        byte[] cbor = cborMapper.writeValueAsBytes(lazy);
+
+        // Assert
+        assertTrue(lazy.isParsed());
+        assertEquals(mapper.readTree(SWAGGER), cborMapper.readTree(cbor));
+    }
+}
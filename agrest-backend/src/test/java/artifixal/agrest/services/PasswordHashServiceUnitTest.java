@@ -0,0 +1,140 @@
+package artifixal.agrest.services;
+
+import artifixal.agrest.config.HashCalibrationProperties;
+import artifixal.agrest.config.HashPoolProperties;
+import artifixal.agrest.exceptions.HashingOverloadedException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+/**
+ * Unit tests of the {@code PasswordHashService} pool.
+ */
+public class PasswordHashServiceUnitTest {
+
+    private final static Duration DEADLINE = Duration.ofMillis(200);
+
+    private SimpleMeterRegistry registry;
+    private PasswordHashService hashService;
+    private Timer timer;
+    private CountDownLatch release;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        HashPoolProperties poolProperties = new HashPoolProperties();
+        poolProperties.setThreads(1);
+        poolProperties.setQueueSize(1);
+        poolProperties.setQueueDeadline(DEADLINE);
+        HashCalibrationProperties calibrationProperties = new HashCalibrationProperties();
+        calibrationProperties.setEnabled(false);
+        hashService = new PasswordHashService(poolProperties, calibrationProperties, registry);
+        ReflectionTestUtils.setField(hashService, "argon2Memory", 64);
+        ReflectionTestUtils.setField(hashService, "argon2Iterations", 1);
+        ReflectionTestUtils.setField(hashService, "argon2Parallelism", 1);
+        ReflectionTestUtils.setField(hashService, "argon2Length", 32);
+        ReflectionTestUtils.setField(hashService, "argon2Type", "id");
+        hashService.start()
+            .block();
+        timer = Timer.builder("test").register(registry);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        ReflectionTestUtils.invokeMethod(hashService, "shutdownPool");
+    }
+
+    @Test
+    public void shouldSizePoolByMemoryAndCores() {
+        long gib = 1024L * 1024 * 1024;
+
+        // 1 GiB quarter fits 4 hashes of 64 MiB, 16 cores allow 16
+        assertEquals(4, PasswordHashService.calcPoolSize(4 * gib, 16, 0.25, 65536, 1));
+        // Plenty of memory, 8 cores with parallelism 2 allow 4
+        assertEquals(4, PasswordHashService.calcPoolSize(64 * gib, 8, 0.25, 65536, 2));
+        // Never below single worker
+        assertEquals(1, PasswordHashService.calcPoolSize(gib, 1, 0.01, 262144, 4));
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() {
+        Disposable running = occupyWorker();
+        Disposable queued = hashService.submit(timer, () -> true)
+            .subscribe();
+
+        // Act & Assert
+        StepVerifier.create(hashService.submit(timer, () -> true))
+            .expectError(HashingOverloadedException.class)
+            .verify(Duration.ofSeconds(1));
+        assertEquals(1, registry.get("agrest.hash.rejected")
+            .tag("reason", "queue_full")
+            .counter()
+            .count());
+        running.dispose();
+        queued.dispose();
+    }
+
+    @Test
+    public void shouldFailAtDeadlineWhileWorkerIsBusy() {
+        Disposable running = occupyWorker();
+        AtomicBoolean executed = new AtomicBoolean();
+
+        // Act & Assert
+        StepVerifier.create(hashService.submit(timer, () -> executed.getAndSet(true)))
+            .expectError(HashingOverloadedException.class)
+            .verify(DEADLINE.multipliedBy(5));
+        release.countDown();
+        // Expired task was removed from queue, next one runs instead
+        StepVerifier.create(hashService.submit(timer, () -> true))
+            .expectNext(true)
+            .verifyComplete();
+        assertFalse(executed.get());
+        assertEquals(1, registry.get("agrest.hash.rejected")
+            .tag("reason", "deadline")
+            .counter()
+            .count());
+        running.dispose();
+    }
+
+    @Test
+    public void shouldAwaitStartedTaskPastDeadline() {
+        // Act & Assert
+        StepVerifier.create(hashService.submit(timer, () -> {
+            Thread.sleep(DEADLINE.multipliedBy(2).toMillis());
+            return true;
+        }))
+            .expectNext(true)
+            .verifyComplete();
+    }
+
+    /**
+     * Keeps the only worker busy until {@code release} is counted down.
+     */
+    private Disposable occupyWorker() {
+        CountDownLatch started = new CountDownLatch(1);
+        Disposable running = hashService.submit(timer, () -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        })
+            .subscribe();
+        try {
+            started.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return running;
+    }
+}
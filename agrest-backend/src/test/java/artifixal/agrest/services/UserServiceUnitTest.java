@@ -0,0 +1,159 @@
+package artifixal.agrest.services;
+
+import artifixal.agrest.auth.LoginResult;
+import artifixal.agrest.auth.UserRole;
+import artifixal.agrest.auth.throttle.LoginThrottleService;
+import artifixal.agrest.dto.user.SecurePassword;
+import artifixal.agrest.dto.user.UserAuthenticationDTO;
+import artifixal.agrest.entity.User;
+import artifixal.agrest.exceptions.HashingOverloadedException;
+import artifixal.agrest.metrics.ReactiveMetrics;
+import artifixal.agrest.repository.UserRepository;
+import artifixal.agrest.token.paseto.PasetoService;
+import artifixal.agrest.token.revocation.RefreshTokenRevocationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests of the {@code UserService} login.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class UserServiceUnitTest {
+
+    private final static String EMAIL = "user@test.localhost";
+    private final static String ADDRESS = "10.0.0.1";
+    private final static byte[] OLD_HASH = "old-hash".getBytes();
+    private final static byte[] NEW_HASH = "new-hash".getBytes();
+
+    @Mock
+    private UserRepository repo;
+    @Mock
+    private PasetoService pasetoService;
+    @Mock
+    private VaultService vaultService;
+    @Mock
+    private PasswordHashService passwordHashService;
+    @Mock
+    private LoginThrottleService throttleService;
+    @Mock
+    private RefreshTokenRevocationService revocationService;
+    @Mock
+    private UserSnapshotCache snapshotCache;
+
+    private SimpleMeterRegistry registry;
+    private UserService userService;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        userService = new UserService(repo, pasetoService, vaultService, passwordHashService, throttleService,
+            revocationService, snapshotCache, new ReactiveMetrics(registry), registry);
+        user = new User(EMAIL, OLD_HASH, UserRole.USER, LocalDateTime.MAX, true, false, false);
+        user.setId(UUID.randomUUID());
+
+        when(throttleService.checkAllowed(ADDRESS, EMAIL)).thenReturn(Mono.just(Duration.ZERO));
+        when(throttleService.recordSuccess(ADDRESS, EMAIL)).thenReturn(Mono.empty());
+        when(repo.findByEmail(EMAIL)).thenReturn(Mono.just(user));
+        when(passwordHashService.verify(any(), any(), any())).thenReturn(Mono.just(true));
+        when(passwordHashService.needsRehash(OLD_HASH)).thenReturn(true);
+        when(pasetoService.createAccessTokenForUser(user)).thenReturn("access");
+        when(pasetoService.createRefreshTokenForUser(user)).thenReturn("refresh");
+    }
+
+    @Test
+    public void shouldUpgradeOutdatedHashOnLogin() throws InterruptedException {
+        when(passwordHashService.hash(any(), any())).thenReturn(Mono.just(NEW_HASH));
+        when(repo.updateHash(user.getId(), OLD_HASH, NEW_HASH)).thenReturn(Mono.just(1));
+
+        // Act
+        LoginResult result = login();
+
+        // Assert
+        assertNotNull(result);
+        // Upgrade runs apart from login
+        awaitRehash("success");
+        verify(repo).updateHash(user.getId(), OLD_HASH, NEW_HASH);
+    }
+
+    @Test
+    public void shouldNotUpgradeCurrentHash() {
+        when(passwordHashService.needsRehash(OLD_HASH)).thenReturn(false);
+
+        // Act
+        LoginResult result = login();
+
+        // Assert
+        assertNotNull(result);
+        verify(passwordHashService, never()).hash(any(), any());
+    }
+
+    @Test
+    public void shouldKeepPasswordChangedDuringUpgrade() throws InterruptedException {
+        when(passwordHashService.hash(any(), any())).thenReturn(Mono.just(NEW_HASH));
+        // Other request replaced the hash meanwhile
+        when(repo.updateHash(user.getId(), OLD_HASH, NEW_HASH)).thenReturn(Mono.just(0));
+
+        // Act
+        LoginResult result = login();
+
+        // Assert
+        assertNotNull(result);
+        awaitRehash("conflict");
+    }
+
+    @Test
+    public void shouldLoginWhenUpgradeFails() throws InterruptedException {
+        when(passwordHashService.hash(any(), any()))
+            .thenReturn(Mono.error(new HashingOverloadedException("Password hashing queue is full")));
+
+        // Act
+        LoginResult result = login();
+
+        // Assert
+        assertNotNull(result);
+        awaitRehash("failure");
+        verify(repo, never()).updateHash(any(), any(), any());
+    }
+
+    private LoginResult login() {
+        var credentials = new UserAuthenticationDTO(EMAIL, new SecurePassword("password".getBytes()));
+        return userService.login(credentials, ADDRESS)
+            .block();
+    }
+
+    /**
+     * Waits for upgrade subscribed apart from login to record its result.
+     */
+    private void awaitRehash(String result) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (rehashCount(result) < 1 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(1, rehashCount(result));
+    }
+
+    private double rehashCount(String result) {
+        Counter counter = registry.find("agrest.hash.rehash")
+            .tag("result", result)
+            .counter();
+        return (counter != null) ? counter.count() : 0;
+    }
+}
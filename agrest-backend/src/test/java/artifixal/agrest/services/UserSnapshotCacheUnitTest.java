@@ -0,0 +1,111 @@
+package artifixal.agrest.services;
+
+import artifixal.agrest.auth.UserRole;
+import artifixal.agrest.dto.user.UserSnapshot;
+import artifixal.agrest.entity.User;
+import artifixal.agrest.metrics.ReactiveMetrics;
+import artifixal.agrest.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests of the {@code UserSnapshotCache}.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserSnapshotCacheUnitTest {
+
+    @Mock
+    private UserRepository repo;
+
+    private UserSnapshotCache snapshotCache;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        snapshotCache = new UserSnapshotCache(repo, Duration.ofMinutes(1), 100, registry,
+            new ReactiveMetrics(registry));
+        user = new User("user@test.localhost", new byte[]{0}, UserRole.USER, LocalDateTime.MAX, true, false, false);
+        user.setId(UUID.randomUUID());
+    }
+
+    @Test
+    public void shouldServeRepeatedLookupsFromCache() {
+        when(repo.findById(user.getId())).thenReturn(Mono.just(user));
+
+        // Act
+        snapshotCache.get(user.getId())
+            .block();
+        UserSnapshot snapshot = snapshotCache.get(user.getId())
+            .block();
+
+        // Assert
+        assertEquals(UserSnapshot.of(user), snapshot);
+        verify(repo, times(1)).findById(user.getId());
+    }
+
+    @Test
+    public void shouldShareQueryBetweenConcurrentLookups() {
+        Sinks.One<User> pending = Sinks.one();
+        AtomicInteger queries = new AtomicInteger();
+        when(repo.findById(user.getId())).thenReturn(pending.asMono()
+            .doOnSubscribe((subscription) -> queries.incrementAndGet()));
+
+        // Act
+        Mono<UserSnapshot> first = snapshotCache.get(user.getId())
+            .cache();
+        Mono<UserSnapshot> second = snapshotCache.get(user.getId())
+            .cache();
+        first.subscribe();
+        second.subscribe();
+        pending.tryEmitValue(user);
+
+        // Assert
+        assertEquals(UserSnapshot.of(user), first.block());
+        assertEquals(UserSnapshot.of(user), second.block());
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void shouldReloadAfterInvalidation() {
+        User locked = new User(user.getEmail(), user.getHash(), UserRole.USER, LocalDateTime.MAX, true, true, false);
+        locked.setId(user.getId());
+        when(repo.findById(user.getId())).thenReturn(Mono.just(user), Mono.just(locked));
+        snapshotCache.get(user.getId())
+            .block();
+
+        // Act
+        snapshotCache.invalidate(user.getId());
+        UserSnapshot snapshot = snapshotCache.get(user.getId())
+            .block();
+
+        // Assert
+        assertTrue(snapshot.locked());
+    }
+
+    @Test
+    public void shouldBeEmptyForMissingUser() {
+        UUID missing = UUID.randomUUID();
+        when(repo.findById(missing)).thenReturn(Mono.empty());
+
+        // Act & Assert
+        assertNull(snapshotCache.get(missing)
+            .block());
+    }
+}
@@ -0,0 +1,146 @@
+package artifixal.agrest.services;
+
+import artifixal.agrest.dto.vault.SecureSecret;
+import artifixal.agrest.dto.vault.SingleKeyDTO;
+import artifixal.agrest.metrics.ReactiveMetrics;
+import artifixal.agrest.services.secrets.SecretStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.vault.support.Versioned;
+import org.springframework.vault.support.Versioned.Version;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests of the {@code VaultService} secret cache.
+ */
+@ExtendWith(MockitoExtension.class)
+public class VaultServiceUnitTest {
+
+    private final static String CSRF_PATH = "agrest-app/csrf";
+    private final static String KEK_PATH = "agrest-app/data-kek";
+
+    @Mock
+    private SecretStore secretStore;
+
+    private SimpleMeterRegistry registry;
+    private VaultService vaultService;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        vaultService = new VaultService(secretStore, registry, new ReactiveMetrics(registry));
+        // Every cached secret is stale right away
+        ReflectionTestUtils.setField(vaultService, "cacheMinTTL", 0);
+        ReflectionTestUtils.setField(vaultService, "cacheMaxTTL", 15);
+        ReflectionTestUtils.setField(vaultService, "cacheSize", 10);
+        ReflectionTestUtils.setField(vaultService, "backoffMin", Duration.ofHours(1));
+        ReflectionTestUtils.setField(vaultService, "backoffMax", Duration.ofHours(1));
+        ReflectionTestUtils.setField(vaultService, "eraseDelay", Duration.ZERO);
+        ReflectionTestUtils.invokeMethod(vaultService, "initCache");
+    }
+
+    @Test
+    public void shouldServeRefreshedSecretAndKeepReplacedOne() throws InterruptedException {
+        SingleKeyDTO first = key(1);
+        SingleKeyDTO second = key(2);
+        when(secretStore.get(CSRF_PATH, SingleKeyDTO.class))
+            .thenReturn(versioned(first, 1), versioned(second, 2));
+
+        // Act
+        SingleKeyDTO served = vaultService.getCsrfKey()
+            .block()
+            .getData();
+        SingleKeyDTO refreshed = vaultService.getCsrfKey()
+            .block()
+            .getData();
+        Thread.sleep(200);
+
+        // Assert
+        assertSame(first, served);
+        assertSame(second, refreshed);
+        // Callers which read it before refresh may still use it
+        assertArrayEquals(new byte[]{1, 1, 1, 1}, first.key()
+            .value());
+        assertTrue(refreshCount("success") >= 1);
+    }
+
+    @Test
+    public void shouldServeCachedSecretAndBackOffAfterFailedRefresh() {
+        SingleKeyDTO cached = key(1);
+        when(secretStore.get(CSRF_PATH, SingleKeyDTO.class))
+            .thenReturn(versioned(cached, 1), Mono.error(new IllegalStateException("Vault unavailable")));
+
+        // Act
+        for (int i = 0; i < 5; i++)
+            assertSame(cached, vaultService.getCsrfKey()
+                .block()
+                .getData());
+
+        // Assert
+        // Load and single failed refresh, later ones wait for backoff
+        verify(secretStore, times(2)).get(CSRF_PATH, SingleKeyDTO.class);
+        assertEquals(1, refreshCount("failure"));
+    }
+
+    @Test
+    public void shouldZeroEvictedSecret() throws InterruptedException {
+        ReflectionTestUtils.setField(vaultService, "cacheMinTTL", 10);
+        ReflectionTestUtils.setField(vaultService, "cacheSize", 1);
+        ReflectionTestUtils.invokeMethod(vaultService, "initCache");
+        SingleKeyDTO csrfKey = key(1);
+        SingleKeyDTO kek = key(2);
+        when(secretStore.get(CSRF_PATH, SingleKeyDTO.class)).thenReturn(versioned(csrfKey, 1));
+        when(secretStore.get(KEK_PATH, SingleKeyDTO.class)).thenReturn(versioned(kek, 1));
+
+        // Act
+        vaultService.getCsrfKey()
+            .block();
+        vaultService.getDataKek()
+            .block();
+
+        // Assert
+        // Only one of them fits in cache
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!isZeroed(csrfKey) && !isZeroed(kek) && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(isZeroed(csrfKey) ^ isZeroed(kek));
+    }
+
+    private SingleKeyDTO key(int fill) {
+        byte[] value = new byte[4];
+        Arrays.fill(value, (byte) fill);
+        return new SingleKeyDTO(new SecureSecret(value));
+    }
+
+    private Mono<Versioned<SingleKeyDTO>> versioned(SingleKeyDTO key, int version) {
+        return Mono.just(Versioned.create(key, Version.from(version)));
+    }
+
+    private boolean isZeroed(SingleKeyDTO key) {
+        for (byte b : key.key().value())
+            if (b != 0)
+                return false;
+        return true;
+    }
+
+    private double refreshCount(String result) {
+        return registry.get("agrest.vault.cache.refresh")
+            .tag("result", result)
+            .counter()
+            .count();
+    }
+}
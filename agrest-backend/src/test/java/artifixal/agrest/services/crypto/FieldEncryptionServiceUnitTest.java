@@ -0,0 +1,93 @@
+package artifixal.agrest.services.crypto;
+
+import artifixal.agrest.exceptions.DecryptionException;
+import artifixal.agrest.services.crypto.DataKeyService.DataKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.crypto.spec.SecretKeySpec;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Unit tests of the {@code FieldEncryptionService}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class FieldEncryptionServiceUnitTest {
+
+    private final static String SCOPE = FieldEncryptionService.TARGETS_SCOPE;
+    private final static byte[] JSON = "{\"Authorization\":\"Bearer secret\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private DataKeyService dataKeyService;
+
+    private DataKey key;
+    private FieldEncryptionService encryptionService;
+
+    @BeforeEach
+    public void setUp() {
+        key = new DataKey(7, new SecretKeySpec(new byte[32], "AES"));
+        when(dataKeyService.getActiveKey(SCOPE)).thenReturn(key);
+        when(dataKeyService.getKey(7)).thenReturn(key);
+        encryptionService = new FieldEncryptionService(dataKeyService);
+    }
+
+    @Test
+    public void shouldWriteValidEnvelope() {
+        byte[] envelope = encryptionService.encrypt(SCOPE, JSON, JSON.length);
+
+        JsonNode node = JsonMapper.builder().build().readTree(envelope).get(FieldEncryptionService.ENVELOPE_FIELD);
+        byte[] data = node.get(FieldEncryptionService.DATA_FIELD).binaryValue();
+
+        assertFalse(new String(envelope, StandardCharsets.UTF_8).contains("secret"));
+        assertEquals(7, node.get(FieldEncryptionService.KEY_ID_FIELD).asInt());
+        assertArrayEquals(JSON, encryptionService.decrypt(SCOPE, 7, data));
+    }
+
+    @Test
+    public void shouldEncryptOnlyGivenLength() {
+        byte[] buffer = new byte[JSON.length + 16];
+        System.arraycopy(JSON, 0, buffer, 0, JSON.length);
+
+        byte[] envelope = encryptionService.encrypt(SCOPE, buffer, JSON.length);
+
+        JsonNode node = JsonMapper.builder().build().readTree(envelope).get(FieldEncryptionService.ENVELOPE_FIELD);
+        byte[] data = node.get(FieldEncryptionService.DATA_FIELD).binaryValue();
+        assertArrayEquals(JSON, encryptionService.decrypt(SCOPE, 7, data));
+    }
+
+    @Test
+    public void shouldEncryptDirectBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(JSON.length)
+            .put(JSON)
+            .flip();
+
+        byte[] envelope = encryptionService.encrypt(SCOPE, buffer);
+
+        JsonNode node = JsonMapper.builder().build().readTree(envelope).get(FieldEncryptionService.ENVELOPE_FIELD);
+        byte[] data = node.get(FieldEncryptionService.DATA_FIELD).binaryValue();
+        assertArrayEquals(JSON, encryptionService.decrypt(SCOPE, 7, data));
+    }
+
+    @Test
+    public void shouldRejectValueOfOtherScope() {
+        when(dataKeyService.getActiveKey("other")).thenReturn(key);
+        byte[] envelope = encryptionService.encrypt("other", JSON, JSON.length);
+
+        JsonNode node = JsonMapper.builder().build().readTree(envelope).get(FieldEncryptionService.ENVELOPE_FIELD);
+        byte[] data = node.get(FieldEncryptionService.DATA_FIELD).binaryValue();
+        assertThrows(DecryptionException.class, () -> encryptionService.decrypt(SCOPE, 7, data));
+    }
+}
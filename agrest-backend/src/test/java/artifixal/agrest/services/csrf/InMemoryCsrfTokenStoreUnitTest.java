@@ -0,0 +1,101 @@
+package artifixal.agrest.services.csrf;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@code InMemoryCsrfTokenStore}.
+ */
+public class InMemoryCsrfTokenStoreUnitTest {
+
+    private final static Duration TTL = Duration.ofSeconds(180);
+
+    private MutableClock clock;
+    private InMemoryCsrfTokenStore store;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(Instant.ofEpochSecond(1_000_000));
+        // Wheel spanning less than TTL to also cover tokens waiting for next turn
+        store = new InMemoryCsrfTokenStore(Duration.ofSeconds(1), 64, clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    public void shouldConsumeTokenOnce() {
+        store.store(List.of("token"), TTL).block();
+
+        assertTrue(store.consume("token").block());
+        assertFalse(store.consume("token").block());
+    }
+
+    @Test
+    public void shouldNotConsumeUnknownToken() {
+        assertFalse(store.consume("unknown").block());
+    }
+
+    @Test
+    public void shouldNotConsumeExpiredToken() {
+        store.store(List.of("token"), TTL).block();
+
+        clock.advance(TTL.plusSeconds(1));
+
+        assertFalse(store.consume("token").block());
+    }
+
+    @Test
+    public void shouldRemoveExpiredTokens() {
+        store.store(List.of("first", "second"), TTL).block();
+        store.store(List.of("third"), TTL.multipliedBy(2)).block();
+
+        for (int i = 0; i <= TTL.toSeconds() + 1; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            store.advance();
+        }
+
+        assertEquals(1, store.size());
+        assertTrue(store.consume("third").block());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        public MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        public void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
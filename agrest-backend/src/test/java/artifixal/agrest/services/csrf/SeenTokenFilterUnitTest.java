@@ -0,0 +1,55 @@
+package artifixal.agrest.services.csrf;
+
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@code SeenTokenFilter}.
+ */
+public class SeenTokenFilterUnitTest {
+
+    private final static long NOW = 1_000_000;
+
+    private SeenTokenFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        filter = new SeenTokenFilter(Duration.ofSeconds(180), 6);
+    }
+
+    @Test
+    public void shouldAcceptTokenOnce() {
+        assertTrue(filter.markSeen("token", NOW, NOW));
+        assertFalse(filter.markSeen("token", NOW, NOW + 10));
+    }
+
+    @Test
+    public void shouldAcceptDifferentTokens() {
+        assertTrue(filter.markSeen("first", NOW, NOW));
+        assertTrue(filter.markSeen("second", NOW, NOW));
+        assertEquals(2, filter.size());
+    }
+
+    @Test
+    public void shouldForgetExpiredTokens() {
+        filter.markSeen("old", NOW, NOW);
+
+        // Token issued after whole TTL has passed
+        filter.markSeen("new", NOW + 240, NOW + 240);
+
+        assertEquals(1, filter.size());
+    }
+
+    @Test
+    public void shouldRememberTokensWithinTtl() {
+        filter.markSeen("token", NOW, NOW);
+
+        filter.markSeen("other", NOW + 170, NOW + 170);
+
+        assertFalse(filter.markSeen("token", NOW, NOW + 175));
+    }
+}
@@ -0,0 +1,77 @@
+package artifixal.agrest.services.secrets;
+
+import artifixal.agrest.dto.vault.SingleKeyDTO;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.vault.support.Versioned.Version;
+
+/**
+ * Unit tests of the {@code InMemorySecretStore}.
+ */
+public class InMemorySecretStoreUnitTest {
+
+    private final static String PATH = "agrest-app/csrf";
+
+    private InMemorySecretStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new InMemorySecretStore(Duration.ZERO);
+    }
+
+    @Test
+    public void shouldReadLatestVersion() {
+        store.put(PATH, keyData(new byte[]{1})).block();
+        var metadata = store.put(PATH, keyData(new byte[]{2})).block();
+
+        var secret = store.get(PATH, SingleKeyDTO.class).block();
+
+        assertEquals(2, metadata.getVersion().getVersion());
+        assertEquals(2, secret.getVersion().getVersion());
+        assertArrayEquals(new byte[]{2}, secret.getData().key().value());
+    }
+
+    @Test
+    public void shouldReadPreviousVersion() {
+        store.put(PATH, keyData(new byte[]{1})).block();
+        store.put(PATH, keyData(new byte[]{2})).block();
+
+        var secret = store.get(PATH, Version.from(1), SingleKeyDTO.class).block();
+
+        assertEquals(1, secret.getVersion().getVersion());
+        assertArrayEquals(new byte[]{1}, secret.getData().key().value());
+        assertNull(store.get(PATH, Version.from(3), SingleKeyDTO.class).block());
+    }
+
+    @Test
+    public void shouldReturnIndependentCopies() {
+        store.put(PATH, keyData(new byte[]{1})).block();
+
+        // Callers clear secrets after use
+        store.get(PATH, SingleKeyDTO.class).block().getData().clear();
+
+        assertArrayEquals(new byte[]{1}, store.get(PATH, SingleKeyDTO.class).block().getData().key().value());
+    }
+
+    @Test
+    public void shouldReportMissingSecret() {
+        assertFalse(store.exists(PATH).block());
+        assertNull(store.get(PATH, SingleKeyDTO.class).block());
+
+        store.put(PATH, keyData(new byte[]{1})).block();
+
+        assertTrue(store.exists(PATH).block());
+    }
+
+    private Map<String, String> keyData(byte[] key) {
+        return Map.of("key", Base64.getEncoder().encodeToString(key));
+    }
+}
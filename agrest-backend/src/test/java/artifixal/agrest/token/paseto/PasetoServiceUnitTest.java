@@ -11,11 +11,13 @@ import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.Security;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,7 +25,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.paseto4j.commons.PasetoException;
 import org.springframework.vault.support.Versioned;
+import org.springframework.vault.support.Versioned.Version;
 import reactor.core.publisher.Mono;
 
 /**
@@ -35,6 +39,7 @@ public class PasetoServiceUnitTest {
     @Mock
     private VaultService vaultService;
     private PasetoService pasetoService;
+    private Versioned<KeyPairDTO> keys;
 
     @BeforeAll
     public static void beforeAll() {
@@ -44,10 +49,12 @@ public class PasetoServiceUnitTest {
     @BeforeEach
     public void setUp() throws InvalidKeySpecException, NoSuchAlgorithmException {
         // Init data
-        final Versioned<KeyPairDTO> keys = Versioned.create(createKeyPair());
+        keys = Versioned.create(createKeyPair(), Version.from(1));
         // Mock key fetch
         when(vaultService.getPasetoKeys()).thenReturn(Mono.just(keys));
-        pasetoService = new PasetoService(vaultService);
+        pasetoService = new PasetoService(vaultService, 3, Duration.ofMinutes(5));
+        pasetoService.loadKeys()
+            .block();
     }
 
     @Test
@@ -61,7 +68,7 @@ public class PasetoServiceUnitTest {
         String refreshToken = pasetoService.createRefreshTokenForUser(user);
         var accessAuth = pasetoService.validateToken(accessToken)
             .block();
-        var refreshAuth = pasetoService.validateToken(refreshToken)
+        var refreshAuth = pasetoService.validateRefreshToken(refreshToken)
             .block();
 
         // Assert
@@ -72,6 +79,62 @@ public class PasetoServiceUnitTest {
         assertEquals(userID.toString(), refreshAuth.getPrincipal().toString());
     }
 
+    @Test
+    public void shouldRejectTokenOfOtherType() {
+        final User user = new User("email", new byte[]{0}, UserRole.USER, LocalDateTime.MIN, true, true, true);
+        user.setId(UUID.randomUUID());
+
+        // Act
+        String accessToken = pasetoService.createAccessTokenForUser(user);
+        String refreshToken = pasetoService.createRefreshTokenForUser(user);
+
+        // Assert
+        assertThrows(PasetoException.class, () -> pasetoService.validateToken(refreshToken));
+        assertThrows(PasetoException.class, () -> pasetoService.validateRefreshToken(accessToken));
+    }
+
+    @Test
+    public void canVerifyTokenSignedWithPreviousKey() throws NoSuchAlgorithmException {
+        final User user = new User("email", new byte[]{0}, UserRole.USER, LocalDateTime.MIN, true, true, true);
+        final UUID userID = UUID.randomUUID();
+        user.setId(userID);
+        final String oldToken = pasetoService.createAccessTokenForUser(user);
+        // Rotate keys in Vault
+        when(vaultService.getPasetoKeys()).thenReturn(Mono.just(Versioned.create(createKeyPair(), Version.from(2))));
+        when(vaultService.getPasetoKeys(1)).thenReturn(Mono.just(keys));
+
+        // Act
+        PasetoService rotatedService = new PasetoService(vaultService, 3, Duration.ofMinutes(5));
+        rotatedService.loadKeys()
+            .block();
+        String newToken = rotatedService.createAccessTokenForUser(user);
+        var oldAuth = rotatedService.validateToken(oldToken)
+            .block();
+        var newAuth = rotatedService.validateToken(newToken)
+            .block();
+
+        // Assert
+        assertEquals(userID.toString(), oldAuth.getPrincipal().toString());
+        assertEquals(userID.toString(), newAuth.getPrincipal().toString());
+        assertThrows(PasetoException.class, () -> pasetoService.validateToken(newToken));
+    }
+
+    @Test
+    public void shouldRejectTokenSignedWithKeyOutsideRing() throws NoSuchAlgorithmException {
+        final User user = new User("email", new byte[]{0}, UserRole.USER, LocalDateTime.MIN, true, true, true);
+        user.setId(UUID.randomUUID());
+        final String oldToken = pasetoService.createAccessTokenForUser(user);
+        when(vaultService.getPasetoKeys()).thenReturn(Mono.just(Versioned.create(createKeyPair(), Version.from(2))));
+
+        // Act
+        PasetoService rotatedService = new PasetoService(vaultService, 1, Duration.ofMinutes(5));
+        rotatedService.loadKeys()
+            .block();
+
+        // Assert
+        assertThrows(PasetoException.class, () -> rotatedService.validateToken(oldToken));
+    }
+
     private KeyPairDTO createKeyPair() throws NoSuchAlgorithmException {
         final KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519")
             .generateKeyPair();
@@ -0,0 +1,49 @@
+package artifixal.agrest.token.revocation;
+
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of the {@code BloomFilter}.
+ */
+public class BloomFilterUnitTest {
+
+    @Test
+    public void shouldContainAllInsertedElements() {
+        final BloomFilter filter = new BloomFilter(1000, 0.01);
+        final String[] elements = new String[1000];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = UUID.randomUUID().toString();
+            filter.put(elements[i]);
+        }
+
+        for (String element : elements)
+            assertTrue(filter.mightContain(element));
+    }
+
+    @Test
+    public void shouldNotContainElementsOfEmptyFilter() {
+        final BloomFilter filter = new BloomFilter(1000, 0.01);
+
+        assertFalse(filter.mightContain(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    public void shouldKeepFalsePositiveRateNearConfigured() {
+        final BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++)
+            filter.put(UUID.randomUUID().toString());
+
+        int falsePositives = 0;
+        final int probes = 100000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString()))
+                falsePositives++;
+        }
+
+        // Allow some variance over configured 1%
+        assertTrue(falsePositives < probes * 0.02, "False positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,156 @@
+package artifixal.agrest.token.revocation;
+
+import artifixal.agrest.config.RevocationProperties;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Unit tests of the {@code RefreshTokenRevocationService}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class RefreshTokenRevocationServiceUnitTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    private RefreshTokenRevocationService revocationService;
+
+    @BeforeEach
+    public void setUp() {
+        RevocationProperties properties = new RevocationProperties();
+        properties.setExpectedTokens(1000);
+        properties.setFalsePositiveRate(0.001);
+        properties.setSyncInterval(Duration.ofHours(1));
+        when(redisTemplate.listenToChannel(anyString())).thenReturn(Flux.never());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        revocationService = new RefreshTokenRevocationService(redisTemplate, properties);
+        ReflectionTestUtils.invokeMethod(revocationService, "init");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(revocationService, "shutdown");
+    }
+
+    @Test
+    public void shouldCheckRedisUntilFilterIsLoaded() {
+        when(redisTemplate.hasKey("revoked:token")).thenReturn(Mono.just(true));
+
+        // Act & Assert
+        assertTrue(revocationService.isRevoked("token")
+            .block());
+    }
+
+    @Test
+    public void shouldNotCheckRedisForTokenMissingInLoadedFilter() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(Flux.just("revoked:other"));
+        revocationService.loadFilter()
+            .block();
+
+        // Act & Assert
+        assertFalse(revocationService.isRevoked("token")
+            .block());
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    public void shouldConfirmFilterPositiveInRedis() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(Flux.just("revoked:token"));
+        when(redisTemplate.hasKey("revoked:token")).thenReturn(Mono.just(true));
+        revocationService.loadFilter()
+            .block();
+
+        // Act & Assert
+        assertTrue(revocationService.isRevoked("token")
+            .block());
+    }
+
+    @Test
+    public void shouldKeepFallingThroughWhenLoadFails() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(Flux.error(new IllegalStateException("down")));
+        when(redisTemplate.hasKey("revoked:token")).thenReturn(Mono.just(true));
+
+        // Act
+        revocationService.loadFilter()
+            .onErrorResume((err) -> Mono.empty())
+            .block();
+
+        // Assert
+        assertTrue(revocationService.isRevoked("token")
+            .block());
+    }
+
+    @Test
+    public void shouldKeepRevocationMadeDuringRebuild() {
+        when(valueOperations.set(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(redisTemplate.hasKey("revoked:token")).thenReturn(Mono.just(true));
+        // Scan doesn't see the revocation yet
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(Flux.defer(() -> revocationService
+            .revoke("token", Duration.ofMinutes(5))
+            .thenMany(Flux.empty())));
+
+        // Act
+        revocationService.loadFilter()
+            .block();
+
+        // Assert
+        assertTrue(revocationService.isRevoked("token")
+            .block());
+    }
+
+    @Test
+    public void shouldKeepRevocationMadeWhileFilterIsReplaced() {
+        when(valueOperations.set(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redisTemplate.convertAndSend(anyString(), anyString())).thenReturn(Mono.just(1L));
+        when(redisTemplate.hasKey("revoked:token")).thenReturn(Mono.just(true));
+        Sinks.Many<String> scan = Sinks.many().unicast().onBackpressureBuffer();
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(scan.asFlux());
+        revocationService.loadFilter()
+            .subscribe();
+        // Rebuild finishes while revocation is being written to the replaced filter
+        ReflectionTestUtils.setField(revocationService, "filter", new BloomFilter(1000, 0.001) {
+            @Override
+            public void put(String element) {
+                super.put(element);
+                scan.tryEmitComplete();
+            }
+        });
+
+        // Act
+        revocationService.revoke("token", Duration.ofMinutes(5))
+            .block();
+
+        // Assert
+        // Filter was replaced, so the positive comes from the rebuilt one
+        assertTrue((Boolean) ReflectionTestUtils.getField(revocationService, "loaded"));
+        assertTrue(revocationService.isRevoked("token")
+            .block());
+        verify(redisTemplate).hasKey("revoked:token");
+    }
+}
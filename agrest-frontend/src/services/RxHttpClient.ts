@@ -1,5 +1,17 @@
 import { useAuthStore } from '@/stores/AuthStore'
-import { catchError, map, mergeMap, retry, take, throwError, timeout, type Observable } from 'rxjs'
+import {
+  catchError,
+  defer,
+  finalize,
+  map,
+  mergeMap,
+  of,
+  retry,
+  take,
+  throwError,
+  timeout,
+  type Observable,
+} from 'rxjs'
 import { ajax } from 'rxjs/ajax'
 
 interface RequestConfig {
@@ -11,11 +23,24 @@ interface RequestConfig {
   timeout?: number
 }
 
-const CSRF_COOKIE = 'csrf'
 const CSRF_HEADER = 'X-XSRF-TOKEN'
+// How many single use CSRF tokens are fetched at once
+const CSRF_BATCH_SIZE = 10
+// Drop pooled tokens a bit before server considers them expired
+const CSRF_EXPIRY_MARGIN_MS = 10000
+// Login, refresh and logout change the user CSRF tokens are bound to
+const AUTH_PATH = '/v1/auth/'
 const API_BASE_URL = import.meta.env.VITE_API_URL || 'https://localhost:8443'
 
+interface CsrfTokenBatch {
+  tokens: string[]
+  ttl: number
+}
+
 class RxHttpClient {
+  private csrfTokens: string[] = []
+  private csrfTokensExpireAt = 0
+
   private defaultHeaders = {
     'Content-Type': 'application/json',
     Accept: 'application/json',
@@ -42,6 +67,9 @@ class RxHttpClient {
       timeout(5000),
       retry({ count: 2, delay: 1000 }),
       catchError(this.handleError),
+      finalize(() => {
+        if (config.url?.startsWith(AUTH_PATH)) this.clearCsrfTokens()
+      }),
     )
   }
 
@@ -66,18 +94,15 @@ class RxHttpClient {
     headers?: Record<string, string>,
   ): Observable<T> {
     if (requiresAuth)
-      return this.getCsrfToken().pipe(
-        take(1),
-        mergeMap((token) => {
-          return this.request<T>({
-            url,
-            method: 'POST',
-            body,
-            requiresAuth,
-            headers: { ...headers, [CSRF_HEADER]: token },
-          })
-        }),
-      )
+      return this.withCsrfToken((token) => {
+        return this.request<T>({
+          url,
+          method: 'POST',
+          body,
+          requiresAuth,
+          headers: { ...headers, [CSRF_HEADER]: token },
+        })
+      })
     else
       return this.request<T>({
         url,
@@ -94,30 +119,26 @@ class RxHttpClient {
     requiresAuth = true,
     headers?: Record<string, string>,
   ): Observable<T> {
-    return this.getCsrfToken().pipe(
-      mergeMap((token) => {
-        return this.request<T>({
-          url,
-          method: 'PUT',
-          body,
-          requiresAuth,
-          headers: { ...headers, [CSRF_HEADER]: token },
-        })
-      }),
-    )
+    return this.withCsrfToken((token) => {
+      return this.request<T>({
+        url,
+        method: 'PUT',
+        body,
+        requiresAuth,
+        headers: { ...headers, [CSRF_HEADER]: token },
+      })
+    })
   }
 
   delete<T>(url: string, requiresAuth = true): Observable<T> {
-    return this.getCsrfToken().pipe(
-      mergeMap((token) => {
-        return this.request<T>({
-          url,
-          method: 'DELETE',
-          requiresAuth,
-          headers: { [CSRF_HEADER]: token },
-        })
-      }),
-    )
+    return this.withCsrfToken((token) => {
+      return this.request<T>({
+        url,
+        method: 'DELETE',
+        requiresAuth,
+        headers: { [CSRF_HEADER]: token },
+      })
+    })
   }
 
   patch<T>(
@@ -126,28 +147,61 @@ class RxHttpClient {
     requiresAuth = true,
     headers?: Record<string, string>,
   ): Observable<T> {
+    return this.withCsrfToken((token) => {
+      return this.request<T>({
+        url,
+        method: 'PATCH',
+        body,
+        requiresAuth,
+        headers: { ...headers, [CSRF_HEADER]: token },
+      })
+    })
+  }
+
+  getCsrfToken(): Observable<string> {
+    return defer(() => {
+      if (Date.now() >= this.csrfTokensExpireAt) this.csrfTokens = []
+      const pooled = this.csrfTokens.shift()
+      if (pooled) return of(pooled)
+      return this.fetchCsrfTokens().pipe(
+        map(() => {
+          const token = this.csrfTokens.shift()
+          if (!token) throw Error('No CSRF token')
+          return token
+        }),
+      )
+    })
+  }
+
+  clearCsrfTokens(): void {
+    this.csrfTokens = []
+    this.csrfTokensExpireAt = 0
+  }
+
+  // Server rejects CSRF with 403, pooled tokens may belong to previous user so fresh ones are tried once
+  private withCsrfToken<T>(send: (token: string) => Observable<T>): Observable<T> {
     return this.getCsrfToken().pipe(
-      mergeMap((token) => {
-        return this.request<T>({
-          url,
-          method: 'PATCH',
-          body,
-          requiresAuth,
-          headers: { ...headers, [CSRF_HEADER]: token },
-        })
+      take(1),
+      mergeMap(send),
+      catchError((error) => {
+        if (error.status !== 403) return throwError(() => error)
+        this.clearCsrfTokens()
+        return this.getCsrfToken().pipe(take(1), mergeMap(send))
       }),
     )
   }
 
-  getCsrfToken(): Observable<string> {
-    return ajax({ url: API_BASE_URL + '/v1/csrf', method: 'GET', withCredentials: true }).pipe(
+  private fetchCsrfTokens(): Observable<void> {
+    return ajax<CsrfTokenBatch>({
+      url: `${API_BASE_URL}/v1/csrf/batch?count=${CSRF_BATCH_SIZE}`,
+      method: 'GET',
+      withCredentials: true,
+    }).pipe(
       take(1),
       map((response) => {
-        if (response.status === 200) {
-          const match = document.cookie.match(new RegExp(`(^| )${CSRF_COOKIE}=([^;]+)`))
-          if (match) return decodeURIComponent(match[2]!)
-        }
-        throw Error('No CSRF cookie')
+        const batch = response.response
+        this.csrfTokens.push(...batch.tokens)
+        this.csrfTokensExpireAt = Date.now() + batch.ttl * 1000 - CSRF_EXPIRY_MARGIN_MS
       }),
     )
   }
@@ -42,6 +42,8 @@ export function useSSEStream<T>(options: SSEOptions) {
 
         async onopen(response) {
           if (response.ok) {
+            // Reconnect sends Last-Event-ID, server resumes after it without pagination headers
+            if (!response.headers.has(TOTAL_COUNT_HEADER) && paginationHeaders.value) return
             const totalCount = parseInt(response.headers.get(TOTAL_COUNT_HEADER) || '0')
             const pageSize = parseInt(response.headers.get(PAGE_SIZE_HEADER) || '0')
             const currentPage = parseInt(response.headers.get(CURRENT_PAGE_HEADER) || '0')